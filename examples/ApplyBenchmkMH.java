@@ -0,0 +1,67 @@
+package examples;
+
+import frege.rt.*;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+
+/**
+ * <p> Companion of ApplyBenchmk.fr that compares the ways to apply an unknown
+ * function to 2 arguments on the Java level: </p>
+ * <ul>
+ * <li> the old chain <tt>new MH(f).apply(a)._e().apply(b)</tt>, which makes an MH per argument, </li>
+ * <li> <tt>new MH(f).apply(a, b)</tt>, which collects both arguments and invokes once, </li>
+ * <li> <tt>Lambda.apply(a, b)</tt>, as used in generated code. </li>
+ * </ul>
+ * <p> Run with <tt>java -cp build examples.ApplyBenchmkMH [iterations]</tt>. </p>
+ */
+public final class ApplyBenchmkMH {
+    static int i(final Lazy<FV> x) { return ((Box.Int) x._e()).j; }
+
+    public static Lazy<FV> plus2(final Lazy<FV> a, final Lazy<FV> b) {
+        return Box.Int.mk((i(a) + i(b)) & 0xffff);
+    }
+
+    final static Lam2 lambda2 = new Lam2() {
+        public Lazy<FV> eval(final Lazy<FV> b, final Lazy<FV> a) { return plus2(a, b); }
+    };
+
+    final static MethodHandle handle = MH.findStatic(ApplyBenchmkMH.class, "plus2",
+            MethodType.methodType(Lazy.class, Lazy.class, Lazy.class));
+
+    static int oldChain(final int n) {
+        int s = 0;
+        for (int k = n; k > 0; k--) {
+            final MH partial = (MH) new MH(handle).apply(Box.Int.mk(s))._e();
+            s = i(partial.apply(Box.Int.mk(k)));
+        }
+        return s;
+    }
+
+    static int mhAtOnce(final int n) {
+        int s = 0;
+        for (int k = n; k > 0; k--) s = i(new MH(handle).apply(Box.Int.mk(s), Box.Int.mk(k)));
+        return s;
+    }
+
+    static int lambda(final int n) {
+        final Lambda f = lambda2;
+        int s = 0;
+        for (int k = n; k > 0; k--) s = i(f.apply(Box.Int.mk(s), Box.Int.mk(k)));
+        return s;
+    }
+
+    static void run(final String msg, final int which, final int n) {
+        final long start = System.currentTimeMillis();
+        final int r = which == 0 ? oldChain(n) : which == 1 ? mhAtOnce(n) : lambda(n);
+        System.out.println(msg + r + " in " + (System.currentTimeMillis() - start) + "ms.");
+    }
+
+    public static void main(final String[] args) {
+        final int n = args.length > 0 ? Integer.parseInt(args[0]) : 10000000;
+        for (int round = 0; round < 3; round++) {
+            run("MH, one argument at a time: ", 0, n);
+            run("MH, both arguments at once: ", 1, n);
+            run("Lambda.apply(a, b):         ", 2, n);
+        }
+    }
+}
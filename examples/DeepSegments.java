@@ -0,0 +1,87 @@
+package examples;
+
+import frege.rt.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p> Regression check that IO code works when a deep evaluation continues
+ * on another stack segment (see {@link Trampoline}). </p>
+ *
+ * <p> Two IO actions nest 1000 evaluations before they do their work: </p>
+ * <ul>
+ * <li> one reads a {@link TVar} within {@link STM#atomically}, which must find the
+ * transaction of the thread that started it, </li>
+ * <li> one blocks in {@link MVar#take} in a thread started with {@link Concurrent#forkIO},
+ * and must terminate when the thread is killed. </li>
+ * </ul>
+ *
+ * <p> Run with <tt>java -Dfrege.stackdepth=100 -cp build examples.DeepSegments</tt>. </p>
+ */
+public final class DeepSegments {
+    static int i(final Lazy<FV> x) { return ((Box.Int) x._e()).j; }
+
+    /** <p> A value that needs <tt>n</tt> nested evaluations before <tt>leaf</tt> is evaluated. </p> */
+    static Lazy<FV> deep(final int n, final Lazy<FV> leaf) {
+        if (n == 0) return leaf;
+        return new Thunk(new Thunk.Code() {
+            public Lazy<FV> _v() { return Box.Int.mk(i(deep(n - 1, leaf)) + 1); }
+        });
+    }
+
+    /** <p> An IO action that gives the value of <tt>v</tt> </p> */
+    static Lambda io(final Lazy<FV> v) {
+        return new Lam1() {
+            public Lazy<FV> eval(final Lazy<FV> world) { return v; }
+        };
+    }
+
+    static boolean stm() {
+        final TVar<FV> var = new TVar<FV>(Box.Int.mk(42));
+        final Lazy<FV> leaf = new Thunk(new Thunk.Code() {
+            public Lazy<FV> _v() { return STM.read(var); }
+        });
+        try {
+            final int r = i(STM.atomically(io(deep(1000, leaf))));
+            System.out.println("STM read at depth 1000: " + r);
+            return r == 1042;
+        } catch (RuntimeException e) {
+            System.out.println("STM read at depth 1000: " + e);
+            return false;
+        }
+    }
+
+    static boolean kill() throws InterruptedException {
+        final MVar<FV> empty = new MVar<FV>();
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch ended = new CountDownLatch(1);
+        final Lazy<FV> leaf = new Thunk(new Thunk.Code() {
+            public Lazy<FV> _v() { blocked.countDown(); return empty.take(); }
+        });
+        final java.util.concurrent.Future<?> thread = Concurrent.forkIO(new Lam1() {
+            public Lazy<FV> eval(final Lazy<FV> world) {
+                try {
+                    return deep(1000, leaf)._e();
+                } finally {
+                    ended.countDown();
+                }
+            }
+        });
+        blocked.await();
+        Concurrent.killThread(thread);
+        final boolean ok = ended.await(10, TimeUnit.SECONDS);
+        System.out.println("killThread at depth 1000: " + (ok ? "terminated" : "still blocked"));
+        return ok;
+    }
+
+    public static void main(final String[] args) throws InterruptedException {
+        if (Trampoline.maxDepth == 0 || Trampoline.maxDepth >= 1000)
+            System.out.println("warning: no stack segments, run with -Dfrege.stackdepth=100");
+        final boolean ok = stm() & kill();
+        if (!ok) {
+            System.out.println("stack segments lose the context of the thread.");
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+}
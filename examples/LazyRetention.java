@@ -0,0 +1,79 @@
+package examples;
+
+import frege.rt.*;
+import java.lang.ref.WeakReference;
+
+/**
+ * <p> Regression check that evaluated lazy values don't keep alive what they
+ * were computed from. </p>
+ *
+ * <p> This builds a long lazy list of cells with a payload of 1KB each,
+ * the way compiled code would: every tail is a {@link Thunk}.
+ * It drops the reference to the head, and walks the list with
+ * <tt>rest = drop 1000 rest</tt> until <tt>n</tt> cells are forced. </p>
+ *
+ * <p> When an evaluated <tt>rest</tt> still referred to the <tt>rest</tt> it was
+ * computed from, the whole list would stay reachable from the last one.
+ * The check fails if the head is not collected, or if the heap grows
+ * with the length of the list. </p>
+ *
+ * <p> Note that a value keeps what it needs while it is being evaluated, thus
+ * a single <tt>drop n</tt> would hold on to the head until it is done. </p>
+ *
+ * <p> Run with <tt>java -Xmx64m -cp build examples.LazyRetention [n]</tt>. </p>
+ */
+public final class LazyRetention {
+    static final class Cons extends Val {
+        final int hd;
+        final Lazy<FV> tl;
+        final byte[] payload = new byte[1024];
+        Cons(final int hd, final Lazy<FV> tl) { this.hd = hd; this.tl = tl; }
+    }
+
+    /** <p> from n = n : from (n+1) </p> */
+    static Lazy<FV> from(final int n) {
+        return new Thunk(new Thunk.Code() {
+            public Lazy<FV> _v() { return new Cons(n, from(n + 1)); }
+        });
+    }
+
+    /** <p> drop n xs, as a chain of unevaluated values, one for each step </p> */
+    static Lazy<FV> drop(final int n, final Lazy<FV> xs) {
+        return new Thunk(new Thunk.Code() {
+            public Lazy<FV> _v() {
+                return n <= 0 ? xs : drop(n - 1, ((Cons) xs._e()).tl);
+            }
+        });
+    }
+
+    static long used() {
+        final Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    public static void main(final String[] args) {
+        final int n = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        Lazy<FV> rest = from(0);
+        final WeakReference<FV> head = new WeakReference<FV>(rest._e());
+        rest = drop(1000, rest);
+        rest._e();
+
+        final long before = used();
+        for (int i = 1000; i < n; i += 1000) {
+            rest = drop(1000, rest);
+            rest._e();
+        }
+        final long after = used();
+
+        final boolean collected = head.get() == null;
+        final boolean bounded   = after - before < 16L * 1024 * 1024;
+        System.out.println("reached " + ((Cons) rest._e()).hd + ", head collected: " + collected
+                + ", heap grew by " + (after - before) / 1024 + "KB for "
+                + n + " cells of 1KB.");
+        if (!collected || !bounded) {
+            System.out.println("evaluated lazy values retain the list.");
+            System.exit(1);
+        }
+    }
+}
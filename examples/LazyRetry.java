@@ -0,0 +1,60 @@
+package examples;
+
+import frege.rt.*;
+
+/**
+ * <p> Regression check that a lazy value whose evaluation failed can be
+ * evaluated again. </p>
+ *
+ * <p> The chain <tt>t = u</tt>, <tt>u = w</tt>, <tt>w = error "boom"</tt> is forced
+ * through <tt>t</tt>, which turns <tt>u</tt> and <tt>w</tt> into indirections to
+ * <tt>t</tt> on the way. The evaluation fails. When the values are forced again,
+ * each one must fail with the same exception, and not with a
+ * {@link NullPointerException} from an indirection that forgot its code.
+ * Afterwards, <tt>w</tt> is allowed to succeed, and all three must get its value. </p>
+ *
+ * <p> Run with <tt>java -cp build examples.LazyRetry</tt>. </p>
+ */
+public final class LazyRetry {
+    static boolean fail = true;
+
+    static Lazy<FV> thunk(final Thunk.Code code) { return new Thunk(code); }
+
+    static String attempt(final Lazy<FV> v) {
+        try {
+            return Integer.toString(((Box.Int) v._e()).j);
+        } catch (RuntimeException e) {
+            return e.getClass().getSimpleName() + ": " + e.getMessage();
+        }
+    }
+
+    static boolean check(final String what, final String got, final String expected) {
+        System.out.println(what + ": " + got);
+        return got.equals(expected);
+    }
+
+    public static void main(final String[] args) {
+        final Lazy<FV> w = thunk(new Thunk.Code() {
+            public Lazy<FV> _v() {
+                if (fail) throw new RuntimeException("boom");
+                return Box.Int.mk(42);
+            }
+        });
+        final Lazy<FV> u = thunk(new Thunk.Code() { public Lazy<FV> _v() { return w; } });
+        final Lazy<FV> t = thunk(new Thunk.Code() { public Lazy<FV> _v() { return u; } });
+
+        final String boom = "RuntimeException: boom";
+        boolean ok = check("t", attempt(t), boom);
+        ok &= check("t again", attempt(t), boom);
+        ok &= check("u", attempt(u), boom);
+        ok &= check("w", attempt(w), boom);
+        fail = false;
+        ok &= check("u after repair", attempt(u), "42");
+        ok &= check("t after repair", attempt(t), "42");
+        ok &= check("w after repair", attempt(w), "42");
+        if (!ok) {
+            System.out.println("failed evaluations are not repeatable.");
+            System.exit(1);
+        }
+    }
+}
@@ -171,6 +171,15 @@ public abstract class RT {
                                                 final java.lang.String r) {
         return clone(m).replaceAll(r);
     }
+    /**
+     * <p>Find the next match on the passed Matcher itself, without a copy.</p>
+     * <p>Used for Matchers that live in the ST monad.</p>
+     * @see java.util.regex.Matcher#find
+     * @return the matched string, or null if there is no further match
+     */
+    public static java.lang.String nextMatch(final java.util.regex.Matcher m) {
+        return m.find() ? m.group() : null;
+    }
 
     /**
      * <p> Exception thrown when the undefined value is evaluated. </p>
@@ -291,12 +300,11 @@ public abstract class RT {
      *  The resulting {@link frege.rt.Unknown} then actually executes the frege code
      *  when evaluated.</p>
      *
-     *  <p>This method checks first if the system property <tt>frege.parallel</tt>
-     *  is set to a value that does not represent <tt>true</tt>.
-     *  If so, it just evaluates the argument.
-     *  Otherwise it submits its argument to a {@link java.util.concurrent.ForkJoinPool}
+     *  <p>By default, it submits its argument to a {@link java.util.concurrent.ForkJoinPool}
      *  and waits for completion. This ensures that frege code sees itself executed
      *  in a fork join pool and is able to fork further tasks.
+     *  The system property <tt>frege.scheduler</tt> can tell otherwise, and 
+     *  the pool can be configured, see {@link frege.rt.Scheduler}.
      *  </p>
      *  <p>In frege code that is not executed in a fork join pool all library
      *  functions for ad hoc parallelism shall perform semantically equivalent
@@ -307,50 +315,23 @@ public abstract class RT {
      *  @param val a {@link frege.rt.Lazy} value to be evaluated in a fork/join context
      */
     public static<V> void fjMain(final Lazy<V> val) {
-        java.util.concurrent.Callable<V> action = new java.util.concurrent.Callable<V> () {
-            public V call() { return val._e(); }
-        };
-        // Check if parallel execution is prohibited
-        // This is the case when the VM was started with -Dfrege.parallel=x
-        // and x is not equal, ignoring case, to the string "true".
-        final String  prop     = System.getProperty("frege.parallel");
-        final boolean parallel = prop == null ? true : Boolean.valueOf( prop );
-        if ( !parallel ) {							// comment out for java6
-            // execution outside fork/join pool
-            try {
-                action.call();
-            } catch (Exception ex) {
-                throw new Error(ex);        // ex.printStackTrace();
-            }
-            return;
-        }											// comment out for java6
-        // run in fork/join pool
-        try {										// comment try/catch blocks out for java6
-            new java.util.concurrent.ForkJoinPool(
-                        2*Runtime.getRuntime().availableProcessors())
-                .submit(action)
-                .get();
-        } catch (Exception ex) {
-            throw new Error(ex);
+        try {
+            frege.rt.Scheduler.main(val);
+        } finally {
+            if (frege.rt.Spark.stats) System.err.println(frege.rt.Spark.statistics());
         }
-        return;
     }
 
     /**
      * <p> fork execution of an Unknown </p>
      * <p> If we are in a fork/join pool and the argument contains an unevaluated value
-     * evaluation of this value is started in a new fork/join task. </p>
+     * a spark is created for it, that is, the value may be evaluated
+     * by another fork/join task, see {@link frege.rt.Spark}. </p>
      * @param it A product of arity 2 that contains the value that must be evaluated in member m1
      * @return <tt>true</tt>
      */
     public final static boolean fork(final frege.rt.Prod2 it) {
-        if (java.util.concurrent.ForkJoinTask.inForkJoinPool()
-            && it.mem1 instanceof frege.rt.Unknown
-            && it.mem1._u()) {
-                final frege.rt.Unknown<FV> u = (frege.rt.Unknown<FV>) it.mem1;
-                java.util.concurrent.ForkJoinTask.<FV>adapt(u).fork();
-                return true;
-        }
+        frege.rt.Spark.spark(it.mem1);
         return true;
     }
 
@@ -185,6 +185,8 @@ private yyprod1 :: [(Int, YYsi ParseResult Token)]
 //%type confld          [ConField SName]
 //%type conflds         [ConField SName]
 //%type contypes        [ConField SName]
+//%type contype         ConField SName
+//%type fldsigma        (Bool, SigmaS)
 //%type dalt            DConS
 //%type simpledalt      DConS
 //%type strictdalt      DConS
@@ -927,7 +929,13 @@ simpledalt:
     ;
 
 contypes:
-    simpletypes                 { map (Field Position.null Nothing Nothing • ForAll [] • RhoTau []) }
+    contype                     { single }
+    | contype contypes          { (:) }
+    ;
+
+contype:
+    simpletype                  { \t   -> Field Position.null Nothing Nothing false (ForAll [] (RhoTau [] t)) }
+    | '!' simpletype            { \_\t -> Field Position.null Nothing Nothing true  (ForAll [] (RhoTau [] t)) }
     ;
 
 simpletypes:
@@ -944,13 +952,18 @@ conflds:
     ;
 
 confld:
-    varids DCOLON sigma           { \vs\_\t -> [Field (snd v) (Just (fst v)) Nothing t | v <- vs ]}
-    | docs varids DCOLON sigma    { \(d::String)\vs\_\t ->
+    varids DCOLON fldsigma        { \vs\_\(s,t) -> [Field (snd v) (Just (fst v)) Nothing s t | v <- vs ]}
+    | docs varids DCOLON fldsigma { \(d::String)\vs\_\(s,t) ->
                                         map ConField.{doc=Just d}
-                                            [Field (snd v) (Just (fst v)) Nothing t    | v <- vs ]
+                                            [Field (snd v) (Just (fst v)) Nothing s t  | v <- vs ]
                                 }
     ;
 
+fldsigma:
+    sigma                         { \t -> (false, t) }
+    | '!' sigma                   { \_\t -> (true, t) }
+    ;
+
 typedef:
     TYPE CONID '=' tau         { \t\i   \_\r -> TypDcl {pos=yyline i, vis=Public, name=Token.value i, vars=[], rho=RhoTau [] r, doc=Nothing}}
     | TYPE CONID dvars '=' tau { \t\i\vs\_\r -> TypDcl {pos=yyline i, vis=Public, name=Token.value i, vars=vs, rho=RhoTau [] r, doc=Nothing}}
@@ -0,0 +1,250 @@
+/* «•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»
+
+    Copyright © 2011, Ingo Wechsung
+    All rights reserved.
+    
+    Redistribution and use in source and binary forms, with or
+    without modification, are permitted provided that the following
+    conditions are met:
+    
+        Redistributions of source code must retain the above copyright
+        notice, this list of conditions and the following disclaimer.
+    
+        Redistributions in binary form must reproduce the above
+        copyright notice, this list of conditions and the following
+        disclaimer in the documentation and/or other materials provided
+        with the distribution. Neither the name of the copyright holder
+        nor the names of its contributors may be used to endorse or
+        promote products derived from this software without specific
+        prior written permission. 
+        
+    THIS SOFTWARE IS PROVIDED BY THE
+    COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR
+    IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+    WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+    PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER
+    OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+    SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+    LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+    USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+    AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+    LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING
+    IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+    THE POSSIBILITY OF SUCH DAMAGE.
+
+    «•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•» */
+
+package frege.rt;
+
+// $Author$
+// $Date$
+// $Rev$
+// $Id$
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.MutableCallSite;
+
+/**
+ * <p> Call sites with inline caches for the application of unknown functions. </p>
+ *
+ * <p> Code like <tt>f.apply(a, b)</tt>, where <tt>f</tt> is a function argument,
+ * is a megamorphic virtual call, as all sorts of functions pass through.
+ * Yet, at any particular place in the code, most often only one or a few
+ * different function classes show up. </p>
+ *
+ * <p> An {@link ApplySite} remembers the classes of the functions it has seen
+ * and links a guarded direct call for each of them, so that the JIT can inline
+ * the call. Because the class of a lambda determines its {@link Lambda#arity},
+ * except for {@link PAP}s, this is at the same time a cache of arities. When
+ * more than {@link ApplySite#polymorphic} different classes show up, the site
+ * falls back to the generic virtual call. </p>
+ *
+ * <p> Code that is compiled to byte code directly can use {@link ApplySite#bootstrap}
+ * as bootstrap method for <tt>invokedynamic</tt> instructions. Since there is no
+ * such instruction in the Java language, the code generator makes static final
+ * handles instead: </p>
+ * <pre>
+ * public final static MethodHandle site1 = ApplySite.site(2);
+ * ...
+ * ApplySite.apply(Consts.site1, f, a, b)
+ * </pre>
+ * <p> Once {@link ApplySite#apply} is inlined, the JIT sees a constant handle and treats
+ * it just like an <tt>invokedynamic</tt> instruction. </p>
+ */
+public final class ApplySite extends MutableCallSite {
+    /** <p> The number of different function classes a site links directly. </p> */
+    public final static int polymorphic = 4;
+
+    private final static MethodHandles.Lookup lookup = MethodHandles.lookup();
+    private final static MethodHandle isClass;
+    private final static MethodHandle miss;
+    static {
+        try {
+            isClass = lookup.findStatic(ApplySite.class, "isClass",
+                    MethodType.methodType(boolean.class, Class.class, Lambda.class));
+            miss = lookup.findVirtual(ApplySite.class, "miss",
+                    MethodType.methodType(Lazy.class, Lambda.class, Object[].class));
+        } catch (ReflectiveOperationException e) {
+            throw new Error(e);
+        }
+    }
+
+    /** <p> The generic virtual call of <tt>Lambda.apply</tt>. </p> */
+    private final MethodHandle generic;
+    /** <p> The classes that are linked so far. </p> */
+    private final Class<?>[] linked = new Class<?>[polymorphic];
+    /** <p> The number of classes that are linked so far. </p> */
+    private int nlinked = 0;
+
+    private ApplySite(final MethodType type) {
+        super(type);
+        try {
+            generic = lookup.findVirtual(Lambda.class, "apply", type.dropParameterTypes(0, 1));
+        } catch (ReflectiveOperationException e) {
+            throw new Error(e);
+        }
+        final int n = type.parameterCount() - 1;
+        setTarget(miss.bindTo(this).asCollector(Object[].class, n).asType(type));
+    }
+
+    /**
+     * <p> Bootstrap method for <tt>invokedynamic</tt> instructions with type
+     * <tt>(Lambda, Lazy, ...) Lazy</tt>. </p>
+     */
+    public static CallSite bootstrap(final MethodHandles.Lookup caller,
+            final String name, final MethodType type) {
+        return new ApplySite(type);
+    }
+
+    /**
+     * <p> Make a call site for the application of unknown functions
+     * to <tt>n</tt> arguments and return its dynamic invoker. </p>
+     * <p> The result should be kept in a static final field
+     * and used with the {@link ApplySite#apply} method for <tt>n</tt> arguments. </p>
+     */
+    public static MethodHandle site(final int n) {
+        final Class<?>[] args = new Class<?>[n];
+        java.util.Arrays.fill(args, Lazy.class);
+        final MethodType type = MethodType.methodType(Lazy.class, Lambda.class)
+                .appendParameterTypes(args);
+        return new ApplySite(type).dynamicInvoker();
+    }
+
+    private static boolean isClass(final Class<?> c, final Lambda f) {
+        return f.getClass() == c;
+    }
+
+    /**
+     * <p> Called when a function shows up that is not linked yet. </p>
+     * <p> Links the class of the function and applies it. </p>
+     */
+    @SuppressWarnings("unchecked")
+    private Lazy<FV> miss(final Lambda f, final Object[] args) {
+        link(f.getClass());
+        try {
+            return (Lazy<FV>) generic.bindTo(f).invokeWithArguments(args);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new Error(e);
+        }
+    }
+
+    private synchronized void link(final Class<?> c) {
+        for (int i = 0; i < nlinked; i++)
+            if (linked[i] == c) return;
+        if (nlinked == polymorphic) {
+            setTarget(generic);         // megamorphic, forget the cache
+            nlinked++;
+            return;
+        }
+        if (nlinked > polymorphic) return;
+        linked[nlinked++] = c;
+        final MethodType type   = type();
+        final MethodHandle direct = direct(c, type).asType(type.changeParameterType(0, c)).asType(type);
+        final MethodHandle test = MethodHandles.dropArguments(
+                    isClass.bindTo(c), 1, type.dropParameterTypes(0, 1).parameterList());
+        setTarget(MethodHandles.guardWithTest(test, direct, getTarget()));
+    }
+
+    /**
+     * <p> The <tt>apply</tt> method that class <tt>c</tt> has for the type of this site,
+     * resolved in <tt>c</tt> rather than in {@link Lambda}. </p>
+     * <p> Most function classes are not public, so the method is looked up by reflection
+     * and made accessible. If this fails, the generic call is returned. </p>
+     */
+    private MethodHandle direct(final Class<?> c, final MethodType type) {
+        final MethodType mt = type.dropParameterTypes(0, 1);
+        try {
+            return lookup.findVirtual(c, "apply", mt);
+        } catch (ReflectiveOperationException e) {
+            // not accessible from here, see below
+        }
+        try {
+            final java.lang.reflect.Method m = c.getMethod("apply", mt.parameterArray());
+            m.setAccessible(true);
+            return lookup.unreflect(m);
+        } catch (ReflectiveOperationException e) {
+            return generic;
+        } catch (RuntimeException e) {  // security or module restrictions
+            return generic;
+        }
+    }
+
+    /** <p> Apply a function to 1 argument through a call site made by {@link ApplySite#site}. </p> */
+    public static Lazy<FV> apply(final MethodHandle site, final Lambda f, final Lazy<FV> v1) {
+        try {
+            return (Lazy<FV>) site.invokeExact(f, v1);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new Error(e);
+        }
+    }
+
+    /** <p> Apply a function to 2 arguments through a call site made by {@link ApplySite#site}. </p> */
+    public static Lazy<FV> apply(final MethodHandle site, final Lambda f, final Lazy<FV> v1, final Lazy<FV> v2) {
+        try {
+            return (Lazy<FV>) site.invokeExact(f, v1, v2);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new Error(e);
+        }
+    }
+
+    /** <p> Apply a function to 3 arguments through a call site made by {@link ApplySite#site}. </p> */
+    public static Lazy<FV> apply(final MethodHandle site, final Lambda f, final Lazy<FV> v1, final Lazy<FV> v2, final Lazy<FV> v3) {
+        try {
+            return (Lazy<FV>) site.invokeExact(f, v1, v2, v3);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new Error(e);
+        }
+    }
+
+    /** <p> Apply a function to 4 arguments through a call site made by {@link ApplySite#site}. </p> */
+    public static Lazy<FV> apply(final MethodHandle site, final Lambda f, final Lazy<FV> v1, final Lazy<FV> v2, final Lazy<FV> v3, final Lazy<FV> v4) {
+        try {
+            return (Lazy<FV>) site.invokeExact(f, v1, v2, v3, v4);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new Error(e);
+        }
+    }
+}
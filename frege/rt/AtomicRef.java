@@ -0,0 +1,84 @@
+/* «•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»
+
+    Copyright © 2011, Ingo Wechsung
+    All rights reserved.
+    
+    Redistribution and use in source and binary forms, with or
+    without modification, are permitted provided that the following
+    conditions are met:
+    
+        Redistributions of source code must retain the above copyright
+        notice, this list of conditions and the following disclaimer.
+    
+        Redistributions in binary form must reproduce the above
+        copyright notice, this list of conditions and the following
+        disclaimer in the documentation and/or other materials provided
+        with the distribution. Neither the name of the copyright holder
+        nor the names of its contributors may be used to endorse or
+        promote products derived from this software without specific
+        prior written permission. 
+        
+    THIS SOFTWARE IS PROVIDED BY THE
+    COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR
+    IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+    WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+    PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER
+    OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+    SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+    LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+    USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+    AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+    LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING
+    IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+    THE POSSIBILITY OF SUCH DAMAGE.
+
+    «•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•» */
+    
+package frege.rt;
+
+// $Author$
+// $Date$
+// $Rev$
+// $Id$
+
+/**
+ * <p> Reference to a frege object that can be updated atomically. </p>
+ *
+ * <p> This is used for the AtomicRef type in frege.lib.Concurrent. </p>
+ *
+ * <p> Values are evaluated before they are stored. Hence, what {@link #get} returns
+ * is exactly what is stored, and {@link #compareAndSet} can compare it by identity. </p>
+ */
+public final class AtomicRef<T extends Lazy<T>> implements Cloneable {
+    private volatile T j;
+
+    @SuppressWarnings("rawtypes")
+    private final static java.util.concurrent.atomic.AtomicReferenceFieldUpdater<AtomicRef, Lazy> J =
+        java.util.concurrent.atomic.AtomicReferenceFieldUpdater.newUpdater(AtomicRef.class, Lazy.class, "j");
+
+    /** Construct a reference. Because this is a native function, the type is correct. */
+    public AtomicRef(final T a) { j = a._e(); }
+    /** getter */
+    public T get() { return j; }
+    /** setter */
+    public void put(final T a) { j = a._e(); }
+
+    /**
+     * <p> Set a new value, if the current value is identical with the expected one. </p>
+     *
+     * @return true if the value was set
+     */
+    public boolean compareAndSet(final T expected, final T a) {
+        return J.compareAndSet(this, expected._e(), a._e());
+    }
+
+    /** <p> Set a new value and return the previous one. </p> */
+    @SuppressWarnings("unchecked")
+    public T getAndSet(final T a) {
+        return (T) J.getAndSet(this, a._e());
+    }
+
+    /** <p> A new reference to the same value. </p> */
+    @Override
+    public AtomicRef<T> clone() { return new AtomicRef<T>(j); }
+}
@@ -123,6 +123,7 @@ public class Box<T>  extends Val {
 
     /**
      * <p> Update array nondestructively. </p>
+     * <p> This copies the whole array, see {@link Vector} for a persistent alternative. </p>
      * @param arr the array
      * @param i   index into arr
      * @param v   new value to set at index i
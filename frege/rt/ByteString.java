@@ -0,0 +1,243 @@
+/* «•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»
+
+    Copyright © 2011, Ingo Wechsung
+    All rights reserved.
+    
+    Redistribution and use in source and binary forms, with or
+    without modification, are permitted provided that the following
+    conditions are met:
+    
+        Redistributions of source code must retain the above copyright
+        notice, this list of conditions and the following disclaimer.
+    
+        Redistributions in binary form must reproduce the above
+        copyright notice, this list of conditions and the following
+        disclaimer in the documentation and/or other materials provided
+        with the distribution. Neither the name of the copyright holder
+        nor the names of its contributors may be used to endorse or
+        promote products derived from this software without specific
+        prior written permission. 
+        
+    THIS SOFTWARE IS PROVIDED BY THE
+    COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR
+    IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+    WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+    PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER
+    OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+    SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+    LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+    USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+    AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+    LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING
+    IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+    THE POSSIBILITY OF SUCH DAMAGE.
+
+    «•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•» */
+    
+package frege.rt;
+
+// $Author$
+// $Date$
+// $Rev$
+// $Id$
+
+/**
+ * <p> Immutable sequence of bytes. </p>
+ *
+ * <p> Used to realize type frege.data.ByteString.ByteString. </p>
+ *
+ * <p> A ByteString is a slice of a byte array, which may be shared
+ * by other ByteStrings. Hence, {@link #take} and {@link #drop} do not copy anything.
+ * The array is never modified after the ByteString is created. 
+ * Note that a small slice keeps the whole array alive, see {@link #copy}. </p>
+ *
+ * <p> Bytes are given and returned as ints between 0 and 255. </p>
+ */
+public final class ByteString implements Comparable<ByteString> {
+    private final byte[] arr;
+    private final int off;
+    private final int len;
+
+    /** <p> The empty ByteString. </p> */
+    public final static ByteString empty = new ByteString(new byte[0], 0, 0);
+
+    private ByteString(final byte[] arr, final int off, final int len) {
+        this.arr = arr; this.off = off; this.len = len;
+    }
+
+    /** <p> The number of bytes. </p> */
+    public int length() { return len; }
+
+    /** <p> The byte at index i. </p> */
+    public int index(final int i) {
+        if (i < 0 || i >= len) throw new IndexOutOfBoundsException("ByteString.index " + i + " of " + len);
+        return arr[off + i] & 0xFF;
+    }
+
+    /** <p> The first n bytes. </p> */
+    public ByteString take(final int n) {
+        if (n >= len) return this;
+        if (n <= 0)   return empty;
+        return new ByteString(arr, off, n);
+    }
+
+    /** <p> All but the first n bytes. </p> */
+    public ByteString drop(final int n) {
+        if (n <= 0)   return this;
+        if (n >= len) return empty;
+        return new ByteString(arr, off + n, len - n);
+    }
+
+    /** <p> Both ByteStrings in one, this one copies. </p> */
+    public ByteString append(final ByteString that) {
+        if (len == 0) return that;
+        if (that.len == 0) return this;
+        final byte[] a = new byte[len + that.len];
+        System.arraycopy(arr, off, a, 0, len);
+        System.arraycopy(that.arr, that.off, a, len, that.len);
+        return new ByteString(a, 0, a.length);
+    }
+
+    /** <p> A ByteString with an array of its own, so that a big array it was sliced from can go. </p> */
+    public ByteString copy() {
+        return new ByteString(java.util.Arrays.copyOfRange(arr, off, off + len), 0, len);
+    }
+
+    /** <p> The index of the first occurrence of a byte at or after <tt>from</tt>, or -1. </p> */
+    public int indexOf(final int b, final int from) {
+        for (int i = Math.max(from, 0); i < len; i++) if ((arr[off + i] & 0xFF) == b) return i;
+        return -1;
+    }
+
+    /** <p> The bytes of a string in UTF-8. </p> */
+    public static ByteString encode(final String s) {
+        final byte[] a = s.getBytes(java.nio.charset.StandardCharsets.UTF_8);
+        return new ByteString(a, 0, a.length);
+    }
+
+    /** <p> The string that is encoded in UTF-8 by the bytes. </p> */
+    public String decode() {
+        return new String(arr, off, len, java.nio.charset.StandardCharsets.UTF_8);
+    }
+
+    /**
+     * <p> The remaining bytes of a buffer. </p>
+     *
+     * <p> The array of a writable heap buffer is shared, so the buffer must not be 
+     * changed afterwards. Otherwise the bytes are copied. </p>
+     */
+    public static ByteString fromBuffer(final java.nio.ByteBuffer buf) {
+        if (buf.hasArray())
+            return new ByteString(buf.array(), buf.arrayOffset() + buf.position(), buf.remaining());
+        final byte[] a = new byte[buf.remaining()];
+        buf.duplicate().get(a);
+        return new ByteString(a, 0, a.length);
+    }
+
+    /** <p> A read only buffer with the bytes, nothing is copied. </p> */
+    public java.nio.ByteBuffer toBuffer() {
+        return java.nio.ByteBuffer.wrap(arr, off, len).asReadOnlyBuffer();
+    }
+
+    /** <p> Read a whole file. </p> */
+    public static ByteString readFile(final String path) throws java.io.IOException {
+        final java.nio.channels.FileChannel ch = new java.io.FileInputStream(path).getChannel();
+        try {
+            final long size = ch.size();
+            if (size > Integer.MAX_VALUE - 8) throw new java.io.IOException(path + ": too big for a ByteString");
+            final java.nio.ByteBuffer buf = java.nio.ByteBuffer.allocate((int) size);
+            while (buf.hasRemaining() && ch.read(buf) >= 0) {}
+            return new ByteString(buf.array(), 0, buf.position());
+        } finally {
+            ch.close();
+        }
+    }
+
+    /** <p> Write the bytes to a channel. </p> */
+    private void write(final java.nio.channels.WritableByteChannel ch) throws java.io.IOException {
+        final java.nio.ByteBuffer buf = java.nio.ByteBuffer.wrap(arr, off, len);
+        while (buf.hasRemaining()) ch.write(buf);
+    }
+
+    /** <p> Write the bytes to a file, replacing or appending to its contents. </p> */
+    public void writeFile(final String path, final boolean append) throws java.io.IOException {
+        final java.nio.channels.FileChannel ch = new java.io.FileOutputStream(path, append).getChannel();
+        try { write(ch); } finally { ch.close(); }
+    }
+
+    /** <p> Write the bytes to an output stream, which is not flushed. </p> */
+    public void hPut(final java.io.OutputStream out) throws java.io.IOException {
+        if (arr.length > 0) out.write(arr, off, len);
+    }
+
+    @Override public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ByteString)) return false;
+        final ByteString that = (ByteString) o;
+        if (len != that.len) return false;
+        for (int i = 0; i < len; i++) if (arr[off+i] != that.arr[that.off+i]) return false;
+        return true;
+    }
+
+    @Override public int hashCode() {
+        int h = 1;
+        for (int i = 0; i < len; i++) h = 31 * h + arr[off+i];
+        return h;
+    }
+
+    /** <p> Lexicographic order of unsigned bytes. </p> */
+    public int compareTo(final ByteString that) {
+        final int n = Math.min(len, that.len);
+        for (int i = 0; i < n; i++) {
+            final int d = (arr[off+i] & 0xFF) - (that.arr[that.off+i] & 0xFF);
+            if (d != 0) return d;
+        }
+        return len - that.len;
+    }
+
+    /**
+     * <p> Mutable buffer for building a ByteString. </p>
+     *
+     * <p> Once {@link #result} was called, the builder must not be used anymore, 
+     * because the ByteString shares its array. </p>
+     */
+    public final static class Builder {
+        private byte[] arr;
+        private int count = 0;
+
+        public Builder()                { arr = new byte[64]; }
+        public Builder(final int size)  { arr = new byte[Math.max(size, 16)]; }
+
+        private void room(final int n) {
+            if (count + n > arr.length) 
+                arr = java.util.Arrays.copyOf(arr, Math.max(2 * arr.length, count + n));
+        }
+
+        /** <p> the number of bytes so far </p> */
+        public int length()                         { return count; }
+        /** <p> append a byte, the value is taken modulo 256 </p> */
+        public void byte8(final int b)              { room(1); arr[count++] = (byte) b; }
+        /** <p> append an int in big endian order </p> */
+        public void int32(final int v) {
+            room(4);
+            arr[count++] = (byte) (v >>> 24); arr[count++] = (byte) (v >>> 16);
+            arr[count++] = (byte) (v >>> 8);  arr[count++] = (byte) v;
+        }
+        /** <p> append a long in big endian order </p> */
+        public void int64(final long v)             { int32((int) (v >>> 32)); int32((int) v); }
+        /** <p> append the bytes of a ByteString </p> */
+        public void bytes(final ByteString bs) {
+            room(bs.len);
+            System.arraycopy(bs.arr, bs.off, arr, count, bs.len);
+            count += bs.len;
+        }
+        /** <p> append a string in UTF-8 </p> */
+        public void string(final String s)          { bytes(encode(s)); }
+        /** <p> the ByteString, the builder is not usable afterwards. </p> */
+        public ByteString result() {
+            final ByteString bs = count == 0 ? empty : new ByteString(arr, 0, count);
+            arr = null;
+            return bs;
+        }
+    }
+}
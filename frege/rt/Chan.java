@@ -0,0 +1,275 @@
+/* «•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»
+
+    Copyright © 2011, Ingo Wechsung
+    All rights reserved.
+    
+    Redistribution and use in source and binary forms, with or
+    without modification, are permitted provided that the following
+    conditions are met:
+    
+        Redistributions of source code must retain the above copyright
+        notice, this list of conditions and the following disclaimer.
+    
+        Redistributions in binary form must reproduce the above
+        copyright notice, this list of conditions and the following
+        disclaimer in the documentation and/or other materials provided
+        with the distribution. Neither the name of the copyright holder
+        nor the names of its contributors may be used to endorse or
+        promote products derived from this software without specific
+        prior written permission. 
+        
+    THIS SOFTWARE IS PROVIDED BY THE
+    COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR
+    IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+    WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+    PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER
+    OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+    SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+    LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+    USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+    AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+    LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING
+    IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+    THE POSSIBILITY OF SUCH DAMAGE.
+
+    «•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•» */
+    
+package frege.rt;
+
+// $Author$
+// $Date$
+// $Rev$
+// $Id$
+
+/**
+ * <p> Channel for passing values between threads. </p>
+ *
+ * <p> Used to realize type frege.lib.Concurrent.Chan a. </p>
+ *
+ * <p> A bounded channel is a ring buffer where every slot has a sequence number 
+ * that tells whether it is free or full for the current round, 
+ * after the design of Dmitry Vyukov. Senders and receivers claim slots by 
+ * advancing the tail or head counter with compare-and-set, and do not lock. 
+ * An unbounded channel uses a {@link java.util.concurrent.ConcurrentLinkedQueue}. </p>
+ *
+ * <p> Only threads that must wait, because the channel is full or empty, 
+ * use the lock. Hence, as long as the channel is neither full nor empty,
+ * senders and receivers never block each other. </p>
+ *
+ * <p> After the channel is closed, sending fails and receivers get 
+ * the values that are still in the channel, and then <tt>null</tt>. A value that is
+ * sent while the channel is being closed may be lost. </p>
+ */
+public final class Chan<T extends Lazy<T>> {
+    /** the ring, or null if the channel is unbounded */
+    private final Object[] ring;
+    /** the sequence numbers of the slots in the ring */
+    private final java.util.concurrent.atomic.AtomicLongArray seq;
+    /** the position of the next receive */
+    private final java.util.concurrent.atomic.AtomicLong head;
+    /** the position of the next send */
+    private final java.util.concurrent.atomic.AtomicLong tail;
+    /** the queue of an unbounded channel */
+    private final java.util.concurrent.ConcurrentLinkedQueue<T> queue;
+
+    private volatile boolean closed = false;
+    private final java.util.concurrent.locks.ReentrantLock lock = 
+            new java.util.concurrent.locks.ReentrantLock();
+    private final java.util.concurrent.locks.Condition notEmpty = lock.newCondition();
+    private final java.util.concurrent.locks.Condition notFull  = lock.newCondition();
+    private final java.util.concurrent.atomic.AtomicInteger waitingReceivers = 
+            new java.util.concurrent.atomic.AtomicInteger();
+    private final java.util.concurrent.atomic.AtomicInteger waitingSenders = 
+            new java.util.concurrent.atomic.AtomicInteger();
+
+    /** <p> Construct an unbounded channel. </p> */
+    public Chan() {
+        ring  = null;
+        seq   = null;
+        head  = null;
+        tail  = null;
+        queue = new java.util.concurrent.ConcurrentLinkedQueue<T>();
+    }
+
+    /** 
+     * <p> Construct a bounded channel. </p>
+     *
+     * <p> The capacity is rounded up to the next power of 2. </p>
+     */
+    public Chan(final int capacity) {
+        int size = 2;
+        while (size < capacity && size < (1 << 30)) size <<= 1;
+        ring  = new Object[size];
+        seq   = new java.util.concurrent.atomic.AtomicLongArray(size);
+        for (int i = 0; i < size; i++) seq.set(i, i);
+        head  = new java.util.concurrent.atomic.AtomicLong();
+        tail  = new java.util.concurrent.atomic.AtomicLong();
+        queue = null;
+    }
+
+    /** <p> Put a value in the ring, if there is room. </p> */
+    private boolean offer(final T x) {
+        if (ring == null) return queue.offer(x);
+        final int mask = ring.length - 1;
+        for (;;) {
+            final long pos = tail.get();
+            final int i = (int) pos & mask;
+            final long d = seq.get(i) - pos;
+            if (d == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    ring[i] = x;
+                    // a volatile store, so that it is not reordered after 
+                    // the load of waitingReceivers in signal()
+                    seq.set(i, pos + 1);
+                    return true;
+                }
+            }
+            else if (d < 0) return false;       // full
+        }
+    }
+
+    /** <p> Take a value from the ring, if there is one. </p> */
+    @SuppressWarnings("unchecked")
+    private T poll() {
+        if (ring == null) return queue.poll();
+        final int mask = ring.length - 1;
+        for (;;) {
+            final long pos = head.get();
+            final int i = (int) pos & mask;
+            final long d = seq.get(i) - (pos + 1);
+            if (d == 0) {
+                if (head.compareAndSet(pos, pos + 1)) {
+                    final T x = (T) ring[i];
+                    ring[i] = null;
+                    seq.set(i, pos + mask + 1);     // see offer()
+                    return x;
+                }
+            }
+            else if (d < 0) return null;        // empty
+        }
+    }
+
+    private void signal(final java.util.concurrent.atomic.AtomicInteger waiting,
+                            final java.util.concurrent.locks.Condition cond) {
+        if (waiting.get() > 0) {
+            lock.lock();
+            try { cond.signal(); } finally { lock.unlock(); }
+        }
+    }
+
+    /** <p> Send a value, and wait as long as the channel is full. </p>
+     *
+     * <p> If the channel is closed concurrently, the value may be accepted
+     * but never received. Hence, <tt>true</tt> means only that the value was put
+     * in the channel, not that it will be delivered. </p>
+     *
+     * @return false if the channel is closed
+     */
+    public boolean send(final T x) {
+        if (closed) return false;
+        if (!offer(x)) {
+            lock.lock();
+            waitingSenders.incrementAndGet();
+            try {
+                while (!offer(x)) {
+                    if (closed) return false;
+                    notFull.await();
+                }
+            } catch (InterruptedException ex) {
+                notFull.signal();           // pass on what may have been meant for us
+                throw Concurrent.killed();
+            } finally {
+                waitingSenders.decrementAndGet();
+                lock.unlock();
+            }
+        }
+        signal(waitingReceivers, notEmpty);
+        return true;
+    }
+
+    /** <p> Send a value if the channel is not full and not closed. </p>
+     *
+     * <p> As with {@link #send}, <tt>true</tt> does not mean that the value will be delivered. </p>
+     */
+    public boolean trySend(final T x) {
+        if (closed || !offer(x)) return false;
+        signal(waitingReceivers, notEmpty);
+        return true;
+    }
+
+    /**
+     * <p> Receive a value, and wait as long as the channel is empty. </p>
+     *
+     * @return the value, or <tt>null</tt> if the channel is closed and empty
+     */
+    public T receive() {
+        T x = poll();
+        if (x == null) {
+            lock.lock();
+            waitingReceivers.incrementAndGet();
+            try {
+                while ((x = poll()) == null) {
+                    if (closed) {
+                        if ((x = poll()) == null) return null;
+                        break;
+                    }
+                    notEmpty.await();
+                }
+            } catch (InterruptedException ex) {
+                notEmpty.signal();          // pass on what may have been meant for us
+                throw Concurrent.killed();
+            } finally {
+                waitingReceivers.decrementAndGet();
+                lock.unlock();
+            }
+        }
+        signal(waitingSenders, notFull);
+        return x;
+    }
+
+    /** <p> Receive a value if there is one, otherwise return <tt>null</tt>. </p> */
+    public T tryReceive() {
+        final T x = poll();
+        if (x != null) signal(waitingSenders, notFull);
+        return x;
+    }
+
+    /**
+     * <p> Receive up to <tt>max</tt> values at once. </p>
+     *
+     * <p> Waits for the first value only. </p>
+     *
+     * @return a fresh array with at least one value, or an empty array 
+     * if the channel is closed and empty
+     */
+    public Array<T> drain(final int max) {
+        final T first = max > 0 ? receive() : null;
+        if (first == null) return new Array<T>(0);
+        final java.util.ArrayList<T> xs = new java.util.ArrayList<T>();
+        xs.add(first);
+        T x;
+        while (xs.size() < max && (x = poll()) != null) xs.add(x);
+        if (xs.size() > 1 && waitingSenders.get() > 0) {
+            lock.lock();
+            try { notFull.signalAll(); } finally { lock.unlock(); }
+        }
+        final Array<T> arr = new Array<T>(xs.size());
+        for (int i = 0; i < xs.size(); i++) arr.setAt(i, xs.get(i));
+        return arr;
+    }
+
+    /** <p> Close the channel, and wake all threads that are waiting. </p> */
+    public void close() {
+        closed = true;
+        lock.lock();
+        try {
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** <p> Tell if the channel is closed. </p> */
+    public boolean isClosed() { return closed; }
+}
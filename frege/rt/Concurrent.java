@@ -0,0 +1,146 @@
+/* «•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»
+
+    Copyright © 2011, Ingo Wechsung
+    All rights reserved.
+    
+    Redistribution and use in source and binary forms, with or
+    without modification, are permitted provided that the following
+    conditions are met:
+    
+        Redistributions of source code must retain the above copyright
+        notice, this list of conditions and the following disclaimer.
+    
+        Redistributions in binary form must reproduce the above
+        copyright notice, this list of conditions and the following
+        disclaimer in the documentation and/or other materials provided
+        with the distribution. Neither the name of the copyright holder
+        nor the names of its contributors may be used to endorse or
+        promote products derived from this software without specific
+        prior written permission. 
+        
+    THIS SOFTWARE IS PROVIDED BY THE
+    COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR
+    IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+    WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+    PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER
+    OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+    SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+    LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+    USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+    AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+    LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING
+    IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+    THE POSSIBILITY OF SUCH DAMAGE.
+
+    «•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•» */
+    
+package frege.rt;
+
+// $Author$
+// $Date$
+// $Rev$
+// $Id$
+
+/**
+ * <p> Threads for frege IO actions. </p>
+ *
+ * <p> Used to realize the functions of frege.lib.Concurrent. </p>
+ *
+ * <p> The threads are virtual threads, if the java runtime has them,
+ * see {@link Scheduler#executor}. Hence, a program can have thousands of them
+ * that block in IO operations at the same time. </p>
+ */
+public final class Concurrent {
+    private Concurrent() {}
+
+    /** <p> The value of type RealWorld that IO actions are applied to. </p> */
+    private final static Box.Int world = Box.Int.mk(0);
+
+    /** 
+     * <p> The exception that is thrown in a thread that was killed while it was blocked. </p>
+     *
+     * <p> The interrupted status of the thread is set again, so that it will not
+     * block again before it terminates. </p>
+     */
+    static java.util.concurrent.CancellationException killed() {
+        Thread.currentThread().interrupt();
+        return new java.util.concurrent.CancellationException("thread killed");
+    }
+
+    /** <p> Perform an IO action, that is, a function from RealWorld to the result. </p> */
+    static Lazy<FV> perform(final Lambda action) {
+        return action.apply(world);
+    }
+
+    /**
+     * <p> Run an IO action in a new thread. </p>
+     *
+     * <p> Exceptions that terminate the action are printed on standard error,
+     * except when the thread was killed. </p>
+     *
+     * @return a handle that can be used to kill the thread
+     */
+    public static java.util.concurrent.Future<?> forkIO(final Lambda action) {
+        return Scheduler.executor().submit(new Runnable() {
+            public void run() {
+                try {
+                    perform(action)._e();
+                } catch (java.util.concurrent.CancellationException ex) {
+                    // killed
+                } catch (Throwable ex) {
+                    if (!Thread.currentThread().isInterrupted()) ex.printStackTrace();
+                }
+            }
+        });
+    }
+
+    /**
+     * <p> Kill a thread started with {@link #forkIO}. </p>
+     *
+     * <p> The thread is interrupted, so that it terminates when it is blocked or blocks
+     * the next time in {@link #threadDelay} or an {@link MVar} operation. </p>
+     */
+    public static void killThread(final java.util.concurrent.Future<?> thread) {
+        thread.cancel(true);
+    }
+
+    /**
+     * <p> Suspend the current thread for the given number of microseconds. </p>
+     *
+     * <p> A delay of 0 or less returns at once, unless the thread was killed. </p>
+     */
+    public static void threadDelay(final int micros) {
+        if (micros <= 0) {
+            if (Thread.interrupted()) throw killed();
+            return;
+        }
+        try {
+            Thread.sleep(micros / 1000, (micros % 1000) * 1000);
+        } catch (InterruptedException ex) {
+            throw killed();
+        }
+    }
+
+    /**
+     * <p> Modify the value of an {@link MVar} with an IO action. </p>
+     *
+     * <p> If the action fails, the old value is put back. </p>
+     *
+     * @param var the variable
+     * @param f a function that makes an IO action from the old value that gives the new one
+     */
+    public static void modify(final MVar<FV> var, final Lambda f) {
+        final FV old = var.take();
+        final FV nv;
+        try {
+            nv = perform((Lambda) f.apply(old)._e())._e();
+        } catch (RuntimeException ex) {
+            var.put(old);
+            throw ex;
+        } catch (Error ex) {
+            var.put(old);
+            throw ex;
+        }
+        var.put(nv);
+    }
+}
@@ -0,0 +1,502 @@
+/* «•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»
+
+    Copyright © 2011, Ingo Wechsung
+    All rights reserved.
+    
+    Redistribution and use in source and binary forms, with or
+    without modification, are permitted provided that the following
+    conditions are met:
+    
+        Redistributions of source code must retain the above copyright
+        notice, this list of conditions and the following disclaimer.
+    
+        Redistributions in binary form must reproduce the above
+        copyright notice, this list of conditions and the following
+        disclaimer in the documentation and/or other materials provided
+        with the distribution. Neither the name of the copyright holder
+        nor the names of its contributors may be used to endorse or
+        promote products derived from this software without specific
+        prior written permission. 
+        
+    THIS SOFTWARE IS PROVIDED BY THE
+    COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR
+    IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+    WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+    PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER
+    OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+    SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+    LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+    USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+    AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+    LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING
+    IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+    THE POSSIBILITY OF SUCH DAMAGE.
+
+    «•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•» */
+
+package frege.rt;
+
+// $Author$
+// $Date$
+// $Rev$
+// $Id$
+
+/**
+ * <p> Functions on primitive values. </p>
+ *
+ * <p> A function of type <tt>Int -&gt; Int</tt> is a {@link Lambda} like any other,
+ * so arguments and results are passed as {@link Box}es, which often means
+ * an allocation on every call. </p>
+ *
+ * <p> Where the compiler knows that a function of such a type is applied,
+ * it checks whether the function is an instance of one of the classes below
+ * and, if so, calls its <tt>run</tt> method with unboxed arguments: </p>
+ * <pre>
+ * f instanceof Fun.II ? ((Fun.II) f).run(x) : ((Box.Int) f.apply(Box.Int.mk(x))._e()).j
+ * </pre>
+ *
+ * <p> The compiler makes function values with such types, that are strict
+ * in all arguments, an instance of one of the classes below.
+ * Because the function is strict, it makes no difference when the
+ * arguments are evaluated. </p>
+ *
+ * <p> There is a class for every function type with 1 or 2 arguments of type
+ * <tt>Int</tt>, <tt>Long</tt> or <tt>Double</tt>, and a result of one of those
+ * types or <tt>Bool</tt>. The class names spell the argument and return types, with
+ * I for int, L for long, D for double and Z for boolean. </p>
+ */
+public final class Fun {
+    private Fun() {}
+
+    /** <p> A function of type <tt>Int -&gt; Int</tt>. </p> */
+    public static abstract class II extends Lam1 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract int run(final int arg1);
+        final public Lazy<FV> eval(final Lazy<FV> arg1) {
+            return Box.Int.mk(run(((Box.Int) arg1._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Int -&gt; Long</tt>. </p> */
+    public static abstract class IL extends Lam1 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract long run(final int arg1);
+        final public Lazy<FV> eval(final Lazy<FV> arg1) {
+            return Box.Long.mk(run(((Box.Int) arg1._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Int -&gt; Double</tt>. </p> */
+    public static abstract class ID extends Lam1 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract double run(final int arg1);
+        final public Lazy<FV> eval(final Lazy<FV> arg1) {
+            return Box.Double.mk(run(((Box.Int) arg1._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Int -&gt; Bool</tt>. </p> */
+    public static abstract class IZ extends Lam1 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract boolean run(final int arg1);
+        final public Lazy<FV> eval(final Lazy<FV> arg1) {
+            return Box.Bool.mk(run(((Box.Int) arg1._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Long -&gt; Int</tt>. </p> */
+    public static abstract class LI extends Lam1 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract int run(final long arg1);
+        final public Lazy<FV> eval(final Lazy<FV> arg1) {
+            return Box.Int.mk(run(((Box.Long) arg1._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Long -&gt; Long</tt>. </p> */
+    public static abstract class LL extends Lam1 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract long run(final long arg1);
+        final public Lazy<FV> eval(final Lazy<FV> arg1) {
+            return Box.Long.mk(run(((Box.Long) arg1._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Long -&gt; Double</tt>. </p> */
+    public static abstract class LD extends Lam1 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract double run(final long arg1);
+        final public Lazy<FV> eval(final Lazy<FV> arg1) {
+            return Box.Double.mk(run(((Box.Long) arg1._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Long -&gt; Bool</tt>. </p> */
+    public static abstract class LZ extends Lam1 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract boolean run(final long arg1);
+        final public Lazy<FV> eval(final Lazy<FV> arg1) {
+            return Box.Bool.mk(run(((Box.Long) arg1._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Double -&gt; Int</tt>. </p> */
+    public static abstract class DI extends Lam1 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract int run(final double arg1);
+        final public Lazy<FV> eval(final Lazy<FV> arg1) {
+            return Box.Int.mk(run(((Box.Double) arg1._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Double -&gt; Long</tt>. </p> */
+    public static abstract class DL extends Lam1 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract long run(final double arg1);
+        final public Lazy<FV> eval(final Lazy<FV> arg1) {
+            return Box.Long.mk(run(((Box.Double) arg1._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Double -&gt; Double</tt>. </p> */
+    public static abstract class DD extends Lam1 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract double run(final double arg1);
+        final public Lazy<FV> eval(final Lazy<FV> arg1) {
+            return Box.Double.mk(run(((Box.Double) arg1._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Double -&gt; Bool</tt>. </p> */
+    public static abstract class DZ extends Lam1 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract boolean run(final double arg1);
+        final public Lazy<FV> eval(final Lazy<FV> arg1) {
+            return Box.Bool.mk(run(((Box.Double) arg1._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Int -&gt; Int -&gt; Int</tt>. </p> */
+    public static abstract class III extends Lam2 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract int run(final int arg1, final int arg2);
+        final public Lazy<FV> eval(final Lazy<FV> arg2, final Lazy<FV> arg1) {
+            return Box.Int.mk(run(((Box.Int) arg1._e()).j, ((Box.Int) arg2._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Int -&gt; Int -&gt; Long</tt>. </p> */
+    public static abstract class IIL extends Lam2 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract long run(final int arg1, final int arg2);
+        final public Lazy<FV> eval(final Lazy<FV> arg2, final Lazy<FV> arg1) {
+            return Box.Long.mk(run(((Box.Int) arg1._e()).j, ((Box.Int) arg2._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Int -&gt; Int -&gt; Double</tt>. </p> */
+    public static abstract class IID extends Lam2 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract double run(final int arg1, final int arg2);
+        final public Lazy<FV> eval(final Lazy<FV> arg2, final Lazy<FV> arg1) {
+            return Box.Double.mk(run(((Box.Int) arg1._e()).j, ((Box.Int) arg2._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Int -&gt; Int -&gt; Bool</tt>. </p> */
+    public static abstract class IIZ extends Lam2 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract boolean run(final int arg1, final int arg2);
+        final public Lazy<FV> eval(final Lazy<FV> arg2, final Lazy<FV> arg1) {
+            return Box.Bool.mk(run(((Box.Int) arg1._e()).j, ((Box.Int) arg2._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Int -&gt; Long -&gt; Int</tt>. </p> */
+    public static abstract class ILI extends Lam2 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract int run(final int arg1, final long arg2);
+        final public Lazy<FV> eval(final Lazy<FV> arg2, final Lazy<FV> arg1) {
+            return Box.Int.mk(run(((Box.Int) arg1._e()).j, ((Box.Long) arg2._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Int -&gt; Long -&gt; Long</tt>. </p> */
+    public static abstract class ILL extends Lam2 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract long run(final int arg1, final long arg2);
+        final public Lazy<FV> eval(final Lazy<FV> arg2, final Lazy<FV> arg1) {
+            return Box.Long.mk(run(((Box.Int) arg1._e()).j, ((Box.Long) arg2._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Int -&gt; Long -&gt; Double</tt>. </p> */
+    public static abstract class ILD extends Lam2 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract double run(final int arg1, final long arg2);
+        final public Lazy<FV> eval(final Lazy<FV> arg2, final Lazy<FV> arg1) {
+            return Box.Double.mk(run(((Box.Int) arg1._e()).j, ((Box.Long) arg2._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Int -&gt; Long -&gt; Bool</tt>. </p> */
+    public static abstract class ILZ extends Lam2 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract boolean run(final int arg1, final long arg2);
+        final public Lazy<FV> eval(final Lazy<FV> arg2, final Lazy<FV> arg1) {
+            return Box.Bool.mk(run(((Box.Int) arg1._e()).j, ((Box.Long) arg2._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Int -&gt; Double -&gt; Int</tt>. </p> */
+    public static abstract class IDI extends Lam2 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract int run(final int arg1, final double arg2);
+        final public Lazy<FV> eval(final Lazy<FV> arg2, final Lazy<FV> arg1) {
+            return Box.Int.mk(run(((Box.Int) arg1._e()).j, ((Box.Double) arg2._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Int -&gt; Double -&gt; Long</tt>. </p> */
+    public static abstract class IDL extends Lam2 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract long run(final int arg1, final double arg2);
+        final public Lazy<FV> eval(final Lazy<FV> arg2, final Lazy<FV> arg1) {
+            return Box.Long.mk(run(((Box.Int) arg1._e()).j, ((Box.Double) arg2._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Int -&gt; Double -&gt; Double</tt>. </p> */
+    public static abstract class IDD extends Lam2 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract double run(final int arg1, final double arg2);
+        final public Lazy<FV> eval(final Lazy<FV> arg2, final Lazy<FV> arg1) {
+            return Box.Double.mk(run(((Box.Int) arg1._e()).j, ((Box.Double) arg2._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Int -&gt; Double -&gt; Bool</tt>. </p> */
+    public static abstract class IDZ extends Lam2 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract boolean run(final int arg1, final double arg2);
+        final public Lazy<FV> eval(final Lazy<FV> arg2, final Lazy<FV> arg1) {
+            return Box.Bool.mk(run(((Box.Int) arg1._e()).j, ((Box.Double) arg2._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Long -&gt; Int -&gt; Int</tt>. </p> */
+    public static abstract class LII extends Lam2 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract int run(final long arg1, final int arg2);
+        final public Lazy<FV> eval(final Lazy<FV> arg2, final Lazy<FV> arg1) {
+            return Box.Int.mk(run(((Box.Long) arg1._e()).j, ((Box.Int) arg2._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Long -&gt; Int -&gt; Long</tt>. </p> */
+    public static abstract class LIL extends Lam2 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract long run(final long arg1, final int arg2);
+        final public Lazy<FV> eval(final Lazy<FV> arg2, final Lazy<FV> arg1) {
+            return Box.Long.mk(run(((Box.Long) arg1._e()).j, ((Box.Int) arg2._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Long -&gt; Int -&gt; Double</tt>. </p> */
+    public static abstract class LID extends Lam2 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract double run(final long arg1, final int arg2);
+        final public Lazy<FV> eval(final Lazy<FV> arg2, final Lazy<FV> arg1) {
+            return Box.Double.mk(run(((Box.Long) arg1._e()).j, ((Box.Int) arg2._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Long -&gt; Int -&gt; Bool</tt>. </p> */
+    public static abstract class LIZ extends Lam2 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract boolean run(final long arg1, final int arg2);
+        final public Lazy<FV> eval(final Lazy<FV> arg2, final Lazy<FV> arg1) {
+            return Box.Bool.mk(run(((Box.Long) arg1._e()).j, ((Box.Int) arg2._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Long -&gt; Long -&gt; Int</tt>. </p> */
+    public static abstract class LLI extends Lam2 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract int run(final long arg1, final long arg2);
+        final public Lazy<FV> eval(final Lazy<FV> arg2, final Lazy<FV> arg1) {
+            return Box.Int.mk(run(((Box.Long) arg1._e()).j, ((Box.Long) arg2._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Long -&gt; Long -&gt; Long</tt>. </p> */
+    public static abstract class LLL extends Lam2 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract long run(final long arg1, final long arg2);
+        final public Lazy<FV> eval(final Lazy<FV> arg2, final Lazy<FV> arg1) {
+            return Box.Long.mk(run(((Box.Long) arg1._e()).j, ((Box.Long) arg2._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Long -&gt; Long -&gt; Double</tt>. </p> */
+    public static abstract class LLD extends Lam2 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract double run(final long arg1, final long arg2);
+        final public Lazy<FV> eval(final Lazy<FV> arg2, final Lazy<FV> arg1) {
+            return Box.Double.mk(run(((Box.Long) arg1._e()).j, ((Box.Long) arg2._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Long -&gt; Long -&gt; Bool</tt>. </p> */
+    public static abstract class LLZ extends Lam2 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract boolean run(final long arg1, final long arg2);
+        final public Lazy<FV> eval(final Lazy<FV> arg2, final Lazy<FV> arg1) {
+            return Box.Bool.mk(run(((Box.Long) arg1._e()).j, ((Box.Long) arg2._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Long -&gt; Double -&gt; Int</tt>. </p> */
+    public static abstract class LDI extends Lam2 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract int run(final long arg1, final double arg2);
+        final public Lazy<FV> eval(final Lazy<FV> arg2, final Lazy<FV> arg1) {
+            return Box.Int.mk(run(((Box.Long) arg1._e()).j, ((Box.Double) arg2._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Long -&gt; Double -&gt; Long</tt>. </p> */
+    public static abstract class LDL extends Lam2 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract long run(final long arg1, final double arg2);
+        final public Lazy<FV> eval(final Lazy<FV> arg2, final Lazy<FV> arg1) {
+            return Box.Long.mk(run(((Box.Long) arg1._e()).j, ((Box.Double) arg2._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Long -&gt; Double -&gt; Double</tt>. </p> */
+    public static abstract class LDD extends Lam2 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract double run(final long arg1, final double arg2);
+        final public Lazy<FV> eval(final Lazy<FV> arg2, final Lazy<FV> arg1) {
+            return Box.Double.mk(run(((Box.Long) arg1._e()).j, ((Box.Double) arg2._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Long -&gt; Double -&gt; Bool</tt>. </p> */
+    public static abstract class LDZ extends Lam2 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract boolean run(final long arg1, final double arg2);
+        final public Lazy<FV> eval(final Lazy<FV> arg2, final Lazy<FV> arg1) {
+            return Box.Bool.mk(run(((Box.Long) arg1._e()).j, ((Box.Double) arg2._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Double -&gt; Int -&gt; Int</tt>. </p> */
+    public static abstract class DII extends Lam2 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract int run(final double arg1, final int arg2);
+        final public Lazy<FV> eval(final Lazy<FV> arg2, final Lazy<FV> arg1) {
+            return Box.Int.mk(run(((Box.Double) arg1._e()).j, ((Box.Int) arg2._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Double -&gt; Int -&gt; Long</tt>. </p> */
+    public static abstract class DIL extends Lam2 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract long run(final double arg1, final int arg2);
+        final public Lazy<FV> eval(final Lazy<FV> arg2, final Lazy<FV> arg1) {
+            return Box.Long.mk(run(((Box.Double) arg1._e()).j, ((Box.Int) arg2._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Double -&gt; Int -&gt; Double</tt>. </p> */
+    public static abstract class DID extends Lam2 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract double run(final double arg1, final int arg2);
+        final public Lazy<FV> eval(final Lazy<FV> arg2, final Lazy<FV> arg1) {
+            return Box.Double.mk(run(((Box.Double) arg1._e()).j, ((Box.Int) arg2._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Double -&gt; Int -&gt; Bool</tt>. </p> */
+    public static abstract class DIZ extends Lam2 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract boolean run(final double arg1, final int arg2);
+        final public Lazy<FV> eval(final Lazy<FV> arg2, final Lazy<FV> arg1) {
+            return Box.Bool.mk(run(((Box.Double) arg1._e()).j, ((Box.Int) arg2._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Double -&gt; Long -&gt; Int</tt>. </p> */
+    public static abstract class DLI extends Lam2 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract int run(final double arg1, final long arg2);
+        final public Lazy<FV> eval(final Lazy<FV> arg2, final Lazy<FV> arg1) {
+            return Box.Int.mk(run(((Box.Double) arg1._e()).j, ((Box.Long) arg2._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Double -&gt; Long -&gt; Long</tt>. </p> */
+    public static abstract class DLL extends Lam2 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract long run(final double arg1, final long arg2);
+        final public Lazy<FV> eval(final Lazy<FV> arg2, final Lazy<FV> arg1) {
+            return Box.Long.mk(run(((Box.Double) arg1._e()).j, ((Box.Long) arg2._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Double -&gt; Long -&gt; Double</tt>. </p> */
+    public static abstract class DLD extends Lam2 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract double run(final double arg1, final long arg2);
+        final public Lazy<FV> eval(final Lazy<FV> arg2, final Lazy<FV> arg1) {
+            return Box.Double.mk(run(((Box.Double) arg1._e()).j, ((Box.Long) arg2._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Double -&gt; Long -&gt; Bool</tt>. </p> */
+    public static abstract class DLZ extends Lam2 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract boolean run(final double arg1, final long arg2);
+        final public Lazy<FV> eval(final Lazy<FV> arg2, final Lazy<FV> arg1) {
+            return Box.Bool.mk(run(((Box.Double) arg1._e()).j, ((Box.Long) arg2._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Double -&gt; Double -&gt; Int</tt>. </p> */
+    public static abstract class DDI extends Lam2 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract int run(final double arg1, final double arg2);
+        final public Lazy<FV> eval(final Lazy<FV> arg2, final Lazy<FV> arg1) {
+            return Box.Int.mk(run(((Box.Double) arg1._e()).j, ((Box.Double) arg2._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Double -&gt; Double -&gt; Long</tt>. </p> */
+    public static abstract class DDL extends Lam2 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract long run(final double arg1, final double arg2);
+        final public Lazy<FV> eval(final Lazy<FV> arg2, final Lazy<FV> arg1) {
+            return Box.Long.mk(run(((Box.Double) arg1._e()).j, ((Box.Double) arg2._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Double -&gt; Double -&gt; Double</tt>. </p> */
+    public static abstract class DDD extends Lam2 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract double run(final double arg1, final double arg2);
+        final public Lazy<FV> eval(final Lazy<FV> arg2, final Lazy<FV> arg1) {
+            return Box.Double.mk(run(((Box.Double) arg1._e()).j, ((Box.Double) arg2._e()).j));
+        }
+    }
+
+    /** <p> A function of type <tt>Double -&gt; Double -&gt; Bool</tt>. </p> */
+    public static abstract class DDZ extends Lam2 {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract boolean run(final double arg1, final double arg2);
+        final public Lazy<FV> eval(final Lazy<FV> arg2, final Lazy<FV> arg1) {
+            return Box.Bool.mk(run(((Box.Double) arg1._e()).j, ((Box.Double) arg2._e()).j));
+        }
+    }
+}
@@ -0,0 +1,290 @@
+/* «•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»
+
+    Copyright © 2011, Ingo Wechsung
+    All rights reserved.
+    
+    Redistribution and use in source and binary forms, with or
+    without modification, are permitted provided that the following
+    conditions are met:
+    
+        Redistributions of source code must retain the above copyright
+        notice, this list of conditions and the following disclaimer.
+    
+        Redistributions in binary form must reproduce the above
+        copyright notice, this list of conditions and the following
+        disclaimer in the documentation and/or other materials provided
+        with the distribution. Neither the name of the copyright holder
+        nor the names of its contributors may be used to endorse or
+        promote products derived from this software without specific
+        prior written permission. 
+        
+    THIS SOFTWARE IS PROVIDED BY THE
+    COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR
+    IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+    WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+    PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER
+    OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+    SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+    LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+    USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+    AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+    LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING
+    IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+    THE POSSIBILITY OF SUCH DAMAGE.
+
+    «•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•» */
+    
+package frege.rt;
+
+// $Author$
+// $Date$
+// $Rev$
+// $Id$
+
+/**
+ * <p> Buffered input from a file or stream with NIO. </p>
+ *
+ * <p> Used to realize type frege.lib.Input.Input. </p>
+ *
+ * <p> The bytes are read in chunks of {@link #chunkSize} bytes into a buffer 
+ * from a {@link java.nio.channels.ReadableByteChannel}, or a file is mapped to memory 
+ * in windows of {@link #mapSize} bytes. Either way, the memory used does not depend
+ * on the size of the input. </p>
+ *
+ * <p> Lines are found by looking for the newline byte, which cannot be part 
+ * of any other UTF-8 sequence, and only then each line is decoded as a whole. 
+ * When a line is completely in the buffer, it is decoded right from there. 
+ * Otherwise, its bytes are collected in a scratch array. </p>
+ *
+ * <p> An Input must not be used by several threads at the same time. </p>
+ */
+public final class Input implements java.io.Closeable {
+    /** <p> Size of the buffer for reading, set with property <tt>frege.chunksize</tt>, default 64k. </p> */
+    public final static int chunkSize = Math.max(16, Integer.getInteger("frege.chunksize", 1 << 16));
+    /** <p> Size of a memory mapped window, set with property <tt>frege.mapsize</tt>, default 64m. </p> */
+    public final static int mapSize = Math.max(chunkSize, Integer.getInteger("frege.mapsize", 1 << 26));
+
+    private final static java.nio.charset.Charset utf8 = java.nio.charset.Charset.forName("UTF-8");
+
+    /** the channel to read from, null if the input is memory mapped */
+    private final java.nio.channels.ReadableByteChannel channel;
+    /** the mapped file, or null */
+    private final java.nio.channels.FileChannel file;
+    /** the file position where the current mapped window starts */
+    private long mapped = 0;
+    /** the buffer, in read mode: the unread bytes are between position and limit */
+    private java.nio.ByteBuffer buf;
+    /** for lines that do not fit in the buffer */
+    private byte[] scratch = new byte[256];
+    private boolean eof = false;
+
+    private Input(final java.nio.channels.ReadableByteChannel channel, 
+                    final java.nio.channels.FileChannel file) {
+        this.channel = channel;
+        this.file = file;
+        if (channel != null) {
+            buf = java.nio.ByteBuffer.allocate(chunkSize);
+            buf.flip();
+        }
+        else buf = java.nio.ByteBuffer.allocate(0);
+    }
+
+    /** <p> Read a file through a channel. </p> */
+    public static Input open(final String path) throws java.io.IOException {
+        return new Input(new java.io.FileInputStream(path).getChannel(), null);
+    }
+
+    /** <p> Read a file by mapping it to memory. </p> */
+    public static Input mmap(final String path) throws java.io.IOException {
+        return new Input(null, new java.io.RandomAccessFile(path, "r").getChannel());
+    }
+
+    /** <p> Read from an input stream. </p> */
+    public static Input fromStream(final java.io.InputStream in) {
+        return new Input(java.nio.channels.Channels.newChannel(in), null);
+    }
+
+    /** <p> Read from standard input. </p> */
+    public static Input stdin() {
+        return fromStream(System.in);
+    }
+
+    /**
+     * <p> Make the unread bytes contiguous and add more. </p>
+     *
+     * @return false if there are no more bytes 
+     */
+    private boolean fill() throws java.io.IOException {
+        if (eof) return false;
+        if (channel == null) {
+            mapped += buf.position();
+            final long rest = file.size() - mapped;
+            if (rest <= buf.remaining()) { eof = true; return false; }
+            buf = file.map(java.nio.channels.FileChannel.MapMode.READ_ONLY, mapped, Math.min(rest, mapSize));
+            return true;
+        }
+        buf.compact();
+        if (!buf.hasRemaining()) {
+            final java.nio.ByteBuffer bigger = java.nio.ByteBuffer.allocate(2 * buf.capacity());
+            buf.flip();
+            bigger.put(buf);
+            buf = bigger;
+        }
+        int n;
+        do n = channel.read(buf); while (n == 0);
+        buf.flip();
+        if (n < 0) { eof = true; return false; }
+        return true;
+    }
+
+    /** <p> Append the bytes from the buffer position up to <tt>end</tt> to the scratch array. </p> */
+    private int collect(final int n, final int end) {
+        final int len = end - buf.position();
+        if (n + len > scratch.length)
+            scratch = java.util.Arrays.copyOf(scratch, Math.max(2 * scratch.length, n + len));
+        buf.get(scratch, n, len);
+        return n + len;
+    }
+
+    private static String decode(final byte[] bytes, final int off, int len) {
+        if (len > 0 && bytes[off + len - 1] == '\r') len--;
+        return new String(bytes, off, len, utf8);
+    }
+
+    /**
+     * <p> Read the next line, without the line terminator. </p>
+     *
+     * @return the line or <tt>null</tt> at the end of the input
+     */
+    public String readLine() throws java.io.IOException {
+        int n = 0;
+        boolean any = false;
+        for (;;) {
+            if (!buf.hasRemaining() && !fill()) {
+                if (!any) return null;
+                return decode(scratch, 0, n);
+            }
+            any = true;
+            final int from = buf.position(), limit = buf.limit();
+            int nl = from;
+            if (buf.hasArray()) {
+                final byte[] arr = buf.array();
+                final int off = buf.arrayOffset();
+                while (nl < limit && arr[off + nl] != '\n') nl++;
+                if (nl < limit && n == 0) {
+                    buf.position(nl + 1);
+                    return decode(arr, off + from, nl - from);
+                }
+            }
+            else while (nl < limit && buf.get(nl) != '\n') nl++;
+            n = collect(n, nl);
+            if (nl < limit) {
+                buf.get();      // the newline
+                return decode(scratch, 0, n);
+            }
+        }
+    }
+
+    /**
+     * <p> Find the end of the last complete UTF-8 sequence in the buffer. </p>
+     */
+    private int boundary() {
+        final int from = buf.position(), limit = buf.limit();
+        int lead = limit - 1;
+        while (lead >= from && lead > limit - 4 && (buf.get(lead) & 0xC0) == 0x80) lead--;
+        if (lead < from) return limit;              // nothing but continuation bytes
+        final int b = buf.get(lead) & 0xFF;
+        final int len = b < 0x80 ? 1 : b >= 0xF0 ? 4 : b >= 0xE0 ? 3 : b >= 0xC0 ? 2 : 1;
+        return lead + len <= limit ? limit : lead;
+    }
+
+    /**
+     * <p> Read the next chunk of text, which ends at a character boundary. </p>
+     *
+     * @return the text, or <tt>null</tt> at the end of the input
+     */
+    public String readChunk() throws java.io.IOException {
+        if (!buf.hasRemaining() && !fill()) return null;
+        int end = Math.min(buf.limit(), buf.position() + chunkSize);
+        final int limit = buf.limit();
+        buf.limit(end);
+        end = boundary();
+        buf.limit(limit);
+        if (end == buf.position()) {
+            // only the start of a sequence is left
+            if (fill()) return readChunk();
+            end = buf.limit();
+        }
+        final String s;
+        if (buf.hasArray())
+            s = new String(buf.array(), buf.arrayOffset() + buf.position(), end - buf.position(), utf8);
+        else {
+            final int n = collect(0, end);
+            s = new String(scratch, 0, n, utf8);
+        }
+        buf.position(end);
+        return s;
+    }
+
+    /**
+     * <p> Read the next chunk of bytes. </p>
+     *
+     * <p> The buffer of a memory mapped file is a read only view of the mapped memory, 
+     * otherwise a copy of the bytes. </p>
+     *
+     * @return a buffer with up to {@link #chunkSize} bytes, or <tt>null</tt> 
+     * at the end of the input
+     */
+    public java.nio.ByteBuffer readBuffer() throws java.io.IOException {
+        if (!buf.hasRemaining() && !fill()) return null;
+        final int len = Math.min(buf.remaining(), chunkSize);
+        final java.nio.ByteBuffer chunk;
+        if (channel == null) {
+            chunk = buf.slice().asReadOnlyBuffer();
+            chunk.limit(len);
+            buf.position(buf.position() + len);
+        }
+        else {
+            final byte[] bytes = new byte[len];
+            buf.get(bytes);
+            chunk = java.nio.ByteBuffer.wrap(bytes);
+        }
+        return chunk;
+    }
+
+    /** <p> Close the underlying channel. </p> */
+    public void close() throws java.io.IOException {
+        eof = true;
+        buf = java.nio.ByteBuffer.allocate(0);
+        if (channel != null) channel.close();
+        else file.close();
+    }
+
+    /** 
+     * <p> For lazy lists: like {@link #readLine}, but closes the input at the end, 
+     * and throws I/O errors unchecked. </p>
+     */
+    public String nextLine() {
+        try {
+            final String s = readLine();
+            if (s == null) close();
+            return s;
+        } catch (java.io.IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /** 
+     * <p> For lazy lists: like {@link #readChunk}, but closes the input at the end,
+     * and throws I/O errors unchecked. </p>
+     */
+    public String nextChunk() {
+        try {
+            final String s = readChunk();
+            if (s == null) close();
+            return s;
+        } catch (java.io.IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+}
@@ -45,9 +45,10 @@ package frege.rt;
  * <p> Frege lambdas with arity 1. </p>
  *
  * <p> Like with {@link Prod1}, {@link Prod2}, ... each lambda type is
- * independent from each other,
- * though Lam<sub><em>i</em></sub> uses Lam<sub><em>i-1</em></sub>,
- * except Lam1 which uses {@link Unknown}. </p>
+ * independent from each other.
+ * Applied to fewer arguments than it takes, a lambda returns a {@link PAP}
+ * that collects the remaining arguments. Applied to all arguments,
+ * it returns an {@link Unknown} that calls the <tt>eval</tt> method. </p>
  *
  * <p> Function values are immutable and thus can be reused as often as one
  * needs them. If the frege function type involves no constraints, then
@@ -67,9 +68,25 @@ public abstract class Lam1 extends Lambda {
      * value of the return type of this function.
      */
     final public Unknown<FV> apply(final Lazy<FV> arg) {
-        return new Unknown<FV> () {
-            final public Lazy<FV> _v() { return Lam1.this.eval(arg); }
-        };
+        return new Apply(this, arg);
+    }
+
+    /**
+     * <p> The lazy value that results from applying a {@link Lam1}. </p>
+     *
+     * <p> Function and argument are dropped once the value is evaluated,
+     * see {@link Unknown#forget}. This is why this is not an anonymous class:
+     * those keep their captured variables as long as they live. </p>
+     */
+    private static final class Apply extends Unknown<FV> {
+        private Lam1 fun;
+        private Lazy<FV> arg1;
+        Apply(final Lam1 fun, final Lazy<FV> arg1) {
+            this.fun = fun;
+            this.arg1 = arg1;
+        }
+        final public Lazy<FV> _v() { return fun.eval(arg1); }
+        final protected void forget() { fun = null; arg1 = null; }
     }
     /**
      * <p> Run the function. </p>
@@ -91,5 +108,10 @@ public abstract class Lam1 extends Lambda {
      * @return boxed and possibly lazy result
      */
     abstract public Lazy<FV> eval(Lazy<FV> arg);               // will finally call function code
+
+    /** <p> This function takes 1 argument. </p> */
+    final public int arity() { return 1; }
+
+    final Lazy<FV> call(final Lazy<FV>[] args) { return this.eval(args[0]); }
         
 }
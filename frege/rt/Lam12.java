@@ -49,19 +49,15 @@ public abstract class Lam12 extends Lambda {
    /**
      * <p>Apply this function to an argument.</p>
      *
-     * <p> This method creates an instance of {@link Lam11} that collects the
-     * remaining arguments and, when evaluated, invokes the {@link Lam12#eval} method of this
+     * <p> This method creates a {@link PAP} that collects the
+     * remaining arguments and, when it has all, invokes the {@link Lam12#eval} method of this
      * class.</p>
      *
-     * @return an instance of type <tt>Lam11</tt> that waits for the
-     * remaining arguments to be supplied and calls back with all arguments.
+     * @return a function that waits for the
+     * remaining 11 arguments to be supplied and calls back with all arguments.
      */
-    final public Lam11 apply(final Lazy<FV> arg1) {
-        return new Lam11 () {
-            final public Lazy<FV> eval(final Lazy<FV> arg12,final Lazy<FV> arg11,final Lazy<FV> arg10,final Lazy<FV> arg9,final Lazy<FV> arg8,final Lazy<FV> arg7,final Lazy<FV> arg6,final Lazy<FV> arg5,final Lazy<FV> arg4,final Lazy<FV> arg3,final Lazy<FV> arg2) {
-                return Lam12.this.eval(arg12,arg11,arg10,arg9,arg8,arg7,arg6,arg5,arg4,arg3,arg2,arg1);
-            }
-        };
+    final public Lambda apply(final Lazy<FV> arg1) {
+        return new PAP(this, arg1);
     }
     /**
      * <p>Apply this function to all its arguments at once.</p>
@@ -77,30 +73,79 @@ public abstract class Lam12 extends Lambda {
      * @return an instance of type <tt>Unknown&lt;FV&gt;</tt>
      */
     final public Unknown<FV> apply(final Lazy<FV> arg1,final Lazy<FV> arg2,final Lazy<FV> arg3,final Lazy<FV> arg4,final Lazy<FV> arg5,final Lazy<FV> arg6,final Lazy<FV> arg7,final Lazy<FV> arg8,final Lazy<FV> arg9,final Lazy<FV> arg10,final Lazy<FV> arg11,final Lazy<FV> arg12) {
-        return new Unknown<FV> () {
-            final public Lazy<FV> _v() { return Lam12.this.eval(arg12,arg11,arg10,arg9,arg8,arg7,arg6,arg5,arg4,arg3,arg2,arg1); }
-        };
+        return new Apply(this, arg1,arg2,arg3,arg4,arg5,arg6,arg7,arg8,arg9,arg10,arg11,arg12);
+    }
+
+    /**
+     * <p> The lazy value that results from applying a {@link Lam12}
+     * to all arguments. </p>
+     *
+     * <p> Function and arguments are dropped once the value is evaluated,
+     * see {@link Lam1} and {@link Unknown#forget}. </p>
+     */
+    private static final class Apply extends Unknown<FV> {
+        private Lam12 fun;
+        private Lazy<FV> arg1,arg2,arg3,arg4,arg5,arg6,arg7,arg8,arg9,arg10,arg11,arg12;
+        Apply(final Lam12 fun, final Lazy<FV> arg1,final Lazy<FV> arg2,final Lazy<FV> arg3,final Lazy<FV> arg4,final Lazy<FV> arg5,final Lazy<FV> arg6,final Lazy<FV> arg7,final Lazy<FV> arg8,final Lazy<FV> arg9,final Lazy<FV> arg10,final Lazy<FV> arg11,final Lazy<FV> arg12) {
+            this.fun = fun;
+            this.arg1 = arg1; this.arg2 = arg2; this.arg3 = arg3; this.arg4 = arg4; this.arg5 = arg5; this.arg6 = arg6; this.arg7 = arg7; this.arg8 = arg8; this.arg9 = arg9; this.arg10 = arg10; this.arg11 = arg11; this.arg12 = arg12;
+        }
+        final public Lazy<FV> _v() { return fun.eval(arg12,arg11,arg10,arg9,arg8,arg7,arg6,arg5,arg4,arg3,arg2,arg1); }
+        final protected void forget() { fun = null; arg1 = null; arg2 = null; arg3 = null; arg4 = null; arg5 = null; arg6 = null; arg7 = null; arg8 = null; arg9 = null; arg10 = null; arg11 = null; arg12 = null; }
     }
     
     /**
      * <p> Run the function. </p>
      *
-     * <p> The run method will be called by the {@link Lam11#eval} method
-     * of the lambda object resulting from <tt>this.apply(...)</tt>.
+     * <p> The run method will be called by the lazy value resulting
+     * from <tt>this.apply(...)</tt> with all arguments, or by a {@link PAP}
+     * that has collected all arguments.
      * It actually performs computation and
      * returns a result or another lazy value that will evaluate to the result.<br>
      * This method must be implemented by all subclasses.</p>
      *
      * <p>
-     * Note that the arguments must be passed in reverse order. The reason is that
-     * in this way the byte code for any intermediate closure will only have to
-     * push its argument and invoke the next higher closure's <tt>eval</tt> method.
-     * A reordering of the arguments on the stack will not be needed. This could save
-     * a substantial amounts of memory writes (I hope).
+     * Note that the arguments must be passed in reverse order. This stems from
+     * the time when partial applications were nested closures, each of which
+     * just pushed its argument and invoked the next higher closure's <tt>eval</tt> method.
      * </p>
      *
      *
      * @return boxed and possibly lazy result
      */
     abstract public Lazy<FV> eval(final Lazy<FV> arg12,final Lazy<FV> arg11,final Lazy<FV> arg10,final Lazy<FV> arg9,final Lazy<FV> arg8,final Lazy<FV> arg7,final Lazy<FV> arg6,final Lazy<FV> arg5,final Lazy<FV> arg4,final Lazy<FV> arg3,final Lazy<FV> arg2, Lazy<FV> arg1);
+
+    /** <p> This function takes 12 arguments. </p> */
+    final public int arity() { return 12; }
+
+    final Lazy<FV> call(final Lazy<FV>[] args) {
+        return this.eval(args[11],args[10],args[9],args[8],args[7],args[6],args[5],args[4],args[3],args[2],args[1],args[0]);
+    }
+
+    /**
+     * <p>Apply this function to 2 arguments.</p>
+     *
+     * @return a {@link PAP} that waits for the remaining 10 arguments.
+     */
+    final public Lambda apply(final Lazy<FV> arg1,final Lazy<FV> arg2) {
+        return new PAP(this, arg1,arg2);
+    }
+
+    /**
+     * <p>Apply this function to 3 arguments.</p>
+     *
+     * @return a {@link PAP} that waits for the remaining 9 arguments.
+     */
+    final public Lambda apply(final Lazy<FV> arg1,final Lazy<FV> arg2,final Lazy<FV> arg3) {
+        return new PAP(this, arg1,arg2,arg3);
+    }
+
+    /**
+     * <p>Apply this function to 4 arguments.</p>
+     *
+     * @return a {@link PAP} that waits for the remaining 8 arguments.
+     */
+    final public Lambda apply(final Lazy<FV> arg1,final Lazy<FV> arg2,final Lazy<FV> arg3,final Lazy<FV> arg4) {
+        return new PAP(this, arg1,arg2,arg3,arg4);
+    }
 }
@@ -45,9 +45,10 @@ package frege.rt;
  * <p> Frege lambdas with arity 2. </p>
  *
  * <p> Like with {@link Prod1}, {@link Prod2}, ... each lambda type is
- * independent from each other,
- * though Lam<sub><em>i</em></sub> uses Lam<sub><em>i-1</em></sub>,
- * except Lam1 which uses {@link Unknown}. </p>
+ * independent from each other.
+ * Applied to fewer arguments than it takes, a lambda returns a {@link PAP}
+ * that collects the remaining arguments. Applied to all arguments,
+ * it returns an {@link Unknown} that calls the <tt>eval</tt> method. </p>
  *
  * <p> Function values are immutable and thus can be reused as often as one
  * needs them. If the frege function type involves no constraints, then
@@ -59,15 +60,12 @@ public abstract class Lam2 extends Lambda {
     /**
      * <p>Apply this function to an argument.</p>
      *
-     * <p> This method creates an instance of {@link Lam1}. </p>
+     * <p> This method creates a {@link PAP} that waits for the second argument. </p>
      *
-     * @return a lazy value that promises to produce a
-     * value of the return type of this function.
+     * @return a function that takes the remaining argument.
      */
-    final public Lam1 apply(final Lazy<FV> arg1) {
-        return new Lam1 () {
-            final public Lazy<FV> eval(final Lazy<FV> arg2) { return Lam2.this.eval(arg2, arg1); }
-        };
+    final public Lambda apply(final Lazy<FV> arg1) {
+        return new PAP(this, arg1);
     }
     
     /**
@@ -84,20 +82,39 @@ public abstract class Lam2 extends Lambda {
      * @return an instance of type <tt>Unknown&lt;FV&gt;</tt>
      */
     final public Unknown<FV> apply(final Lazy<FV> arg1,final Lazy<FV> arg2) {
-        return new Unknown<FV> () {
-            final public Lazy<FV> _v() { return Lam2.this.eval(arg2,arg1); }
-        };
+        return new Apply(this, arg1,arg2);
+    }
+
+    /**
+     * <p> The lazy value that results from applying a {@link Lam2}
+     * to all arguments. </p>
+     *
+     * <p> Function and arguments are dropped once the value is evaluated,
+     * see {@link Lam1} and {@link Unknown#forget}. </p>
+     */
+    private static final class Apply extends Unknown<FV> {
+        private Lam2 fun;
+        private Lazy<FV> arg1,arg2;
+        Apply(final Lam2 fun, final Lazy<FV> arg1,final Lazy<FV> arg2) {
+            this.fun = fun;
+            this.arg1 = arg1; this.arg2 = arg2;
+        }
+        final public Lazy<FV> _v() { return fun.eval(arg2,arg1); }
+        final protected void forget() { fun = null; arg1 = null; arg2 = null; }
     }
     
     /**
      * <p> Run the function. </p>
      *
-     * <p> This method will be called by the {@link Lam1#eval} method,
-     * which passes the arguments up in reverse order.
-     * </p>
+     * <p> Note that the arguments are passed in reverse order. </p>
      *
      * @return boxed and possibly lazy result
      */
     abstract public Lazy<FV> eval(Lazy<FV> arg2, Lazy<FV> arg1);
+
+    /** <p> This function takes 2 arguments. </p> */
+    final public int arity() { return 2; }
+
+    final Lazy<FV> call(final Lazy<FV>[] args) { return this.eval(args[1], args[0]); }
         
 }
@@ -49,19 +49,15 @@ public abstract class Lam3 extends Lambda {
    /**
      * <p>Apply this function to an argument.</p>
      *
-     * <p> This method creates an instance of {@link Lam2} that collects the
-     * remaining arguments and, when evaluated, invokes the {@link Lam3#eval} method of this
+     * <p> This method creates a {@link PAP} that collects the
+     * remaining arguments and, when it has all, invokes the {@link Lam3#eval} method of this
      * class.</p>
      *
-     * @return an instance of type <tt>Lam2</tt> that waits for the
-     * remaining arguments to be supplied and calls back with all arguments.
+     * @return a function that waits for the
+     * remaining 2 arguments to be supplied and calls back with all arguments.
      */
-    final public Lam2 apply(final Lazy<FV> arg1) {
-        return new Lam2 () {
-            final public Lazy<FV> eval(final Lazy<FV> arg3,final Lazy<FV> arg2) {
-                return Lam3.this.eval(arg3,arg2,arg1);
-            }
-        };
+    final public Lambda apply(final Lazy<FV> arg1) {
+        return new PAP(this, arg1);
     }
     /**
      * <p>Apply this function to all its arguments at once.</p>
@@ -77,30 +73,61 @@ public abstract class Lam3 extends Lambda {
      * @return an instance of type <tt>Unknown&lt;FV&gt;</tt>
      */
     final public Unknown<FV> apply(final Lazy<FV> arg1,final Lazy<FV> arg2,final Lazy<FV> arg3) {
-        return new Unknown<FV> () {
-            final public Lazy<FV> _v() { return Lam3.this.eval(arg3,arg2,arg1); }
-        };
+        return new Apply(this, arg1,arg2,arg3);
+    }
+
+    /**
+     * <p> The lazy value that results from applying a {@link Lam3}
+     * to all arguments. </p>
+     *
+     * <p> Function and arguments are dropped once the value is evaluated,
+     * see {@link Lam1} and {@link Unknown#forget}. </p>
+     */
+    private static final class Apply extends Unknown<FV> {
+        private Lam3 fun;
+        private Lazy<FV> arg1,arg2,arg3;
+        Apply(final Lam3 fun, final Lazy<FV> arg1,final Lazy<FV> arg2,final Lazy<FV> arg3) {
+            this.fun = fun;
+            this.arg1 = arg1; this.arg2 = arg2; this.arg3 = arg3;
+        }
+        final public Lazy<FV> _v() { return fun.eval(arg3,arg2,arg1); }
+        final protected void forget() { fun = null; arg1 = null; arg2 = null; arg3 = null; }
     }
     
     /**
      * <p> Run the function. </p>
      *
-     * <p> The run method will be called by the {@link Lam2#eval} method
-     * of the lambda object resulting from <tt>this.apply(...)</tt>.
+     * <p> The run method will be called by the lazy value resulting
+     * from <tt>this.apply(...)</tt> with all arguments, or by a {@link PAP}
+     * that has collected all arguments.
      * It actually performs computation and
      * returns a result or another lazy value that will evaluate to the result.<br>
      * This method must be implemented by all subclasses.</p>
      *
      * <p>
-     * Note that the arguments must be passed in reverse order. The reason is that
-     * in this way the byte code for any intermediate closure will only have to
-     * push its argument and invoke the next higher closure's <tt>eval</tt> method.
-     * A reordering of the arguments on the stack will not be needed. This could save
-     * a substantial amounts of memory writes (I hope).
+     * Note that the arguments must be passed in reverse order. This stems from
+     * the time when partial applications were nested closures, each of which
+     * just pushed its argument and invoked the next higher closure's <tt>eval</tt> method.
      * </p>
      *
      *
      * @return boxed and possibly lazy result
      */
     abstract public Lazy<FV> eval(final Lazy<FV> arg3,final Lazy<FV> arg2, Lazy<FV> arg1);
+
+    /** <p> This function takes 3 arguments. </p> */
+    final public int arity() { return 3; }
+
+    final Lazy<FV> call(final Lazy<FV>[] args) {
+        return this.eval(args[2],args[1],args[0]);
+    }
+
+    /**
+     * <p>Apply this function to 2 arguments.</p>
+     *
+     * @return a {@link PAP} that waits for the remaining 1 arguments.
+     */
+    final public Lambda apply(final Lazy<FV> arg1,final Lazy<FV> arg2) {
+        return new PAP(this, arg1,arg2);
+    }
 }
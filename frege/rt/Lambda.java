@@ -43,6 +43,20 @@ package frege.rt;
 
 /**
  * <p> A thing that can be applied to something. </p> 
+ *
+ * <h3> Application of unknown functions </h3>
+ *
+ * <p> When code applies a function that is not known at compile time
+ * to more than one argument, it could apply the arguments one by one: </p>
+ * <pre> f.app(a).app(b).apply(c) </pre>
+ * <p> But if <tt>f</tt> takes 3 arguments, this creates 2 partial applications
+ * that are of no use except to collect the arguments. Therefore, lambdas can
+ * be applied to up to 4 arguments at once: </p>
+ * <pre> f.apply(a, b, c) </pre>
+ * <p> which calls the function directly if the number of arguments matches its
+ * {@link Lambda#arity}, creates a partial application only if there are
+ * fewer arguments and evaluates the result of the saturated call
+ * and applies it to the remaining arguments if there are more.</p>
  */
 
 public abstract class Lambda implements FV {
@@ -50,6 +64,47 @@ public abstract class Lambda implements FV {
         <p> Apply this to an argument. </p>
     */
     public abstract Lazy<FV> apply(final Lazy<FV> v);
+
+    /**
+        <p> The number of arguments this function takes. </p>
+    */
+    public abstract int arity();
+
+    /**
+        <p> Run the function with all its arguments, first argument first. </p>
+        <p> This is how a saturated {@link PAP} calls its function. </p>
+    */
+    abstract Lazy<FV> call(final Lazy<FV>[] args);
+
+    /**
+        <p> Apply this to 2 arguments. </p>
+        <p> This is overridden in functions that take 2 or more arguments.
+        Here, we know that the function takes 1 argument and returns a function. </p>
+    */
+    public Lazy<FV> apply(final Lazy<FV> v1, final Lazy<FV> v2) {
+        return this.app(v1).apply(v2);
+    }
+
+    /**
+        <p> Apply this to 3 arguments. </p>
+        <p> This is overridden in functions that take 3 or more arguments. </p>
+    */
+    public Lazy<FV> apply(final Lazy<FV> v1, final Lazy<FV> v2, final Lazy<FV> v3) {
+        if (arity() == 2) return ((Lambda) this.apply(v1, v2)._e()).apply(v3);
+        return this.app(v1).apply(v2, v3);
+    }
+
+    /**
+        <p> Apply this to 4 arguments. </p>
+        <p> This is overridden in functions that take 4 or more arguments. </p>
+    */
+    public Lazy<FV> apply(final Lazy<FV> v1, final Lazy<FV> v2, final Lazy<FV> v3, final Lazy<FV> v4) {
+        switch (arity()) {
+            case 3:  return ((Lambda) this.apply(v1, v2, v3)._e()).apply(v4);
+            case 2:  return ((Lambda) this.apply(v1, v2)._e()).apply(v3, v4);
+            default: return this.app(v1).apply(v2, v3, v4);
+        }
+    }
     /**
         <p> Apply this to an argument and cast the evaluated result to a Lambda. </p>
         <p> This is useful to avoid code like </p>
@@ -52,6 +52,10 @@ import java.lang.invoke.MethodType;
  * <p> A {@link MH} that holds a non satisfied {@link MethodHandle} evaluates to itself.
  * However, if all arguments are supplied evaluation will cause invocation of the
  * {@link MethodHandle}. </p> 
+ *
+ * <p> Arguments are collected in the {@link MH} itself. The {@link MethodHandle}
+ * is not bound to them, as this would create a new {@link MethodHandle} for
+ * every argument of every call, which could never be optimized by the JIT.</p>
  */
 
 public final class MH extends Unknown<FV> implements FV {
@@ -61,40 +65,72 @@ public final class MH extends Unknown<FV> implements FV {
     public final int arity;
     /** <p> The {@link MethodHandle}.</p> */
     public final MethodHandle j;
+    /** 
+     * <p> The {@link MethodHandle} adapted to take and return {@link Object}s,
+     * so that it can be called with {@link MethodHandle#invokeExact}. </p>
+     * <p> This is done once, and passed on to the MHs made by apply. </p>
+     */
+    private final MethodHandle exact;
+    /** <p> The arguments collected so far. </p> */
+    private final Object[] args;
+
+    private final static Object[] noargs = new Object[0];
     
     public String toString() {
-        return "MH{arity=" + arity + ", j=" + j.toString() + "}";
+        return "MH{arity=" + arity + ", args=" + args.length + ", j=" + j.toString() + "}";
     }
     
     /** <p> Create a MH from a {@link MethodHandle}, takes arity from type </p> */
     public MH(final MethodHandle it) { 
-        j = it; 
-        arity = it.type().parameterCount();
-        if (arity > 0) result = this;       // prevent evaluation
+        this(it, it.type().parameterCount());
     }
     
     /** <p> Create a MH from a {@link MethodHandle} with a given arity. </p> */
     public MH(final MethodHandle it, final int ari) {
+        this(it, it.asType(MethodType.genericMethodType(it.type().parameterCount())), ari, noargs);
+    }
+
+    /** <p> Create a MH that has already some arguments. </p> */
+    private MH(final MethodHandle it, final MethodHandle ex, final int ari, final Object[] xs) {
         j = it; 
+        exact = ex;
         arity = ari;
+        args = xs;
         if (arity > 0) result = this;       // prevent evaluation
     }
 
     /** <p> Evaluation of a MH</p>
         <p> If the arity is not 0, it evaluates to itself. </p>
-        <p> If the arity is 0, it evaluates the result of the invokation of the MethodHandle </p>
+        <p> If the arity is 0, it evaluates the result of the invokation of the MethodHandle 
+            with the collected arguments. </p>
     */
+    @SuppressWarnings("unchecked")
     @Override public Lazy<FV> _v() {
-        // if (arity > 0) return this;
-        // if (result
         try {
-            return (Lazy<FV>) j.invokeExact(); 
+            final Object r;
+            if (args.length != exact.type().parameterCount()) r = j.invokeWithArguments(args);
+            else switch (args.length) {
+                case 0:  r = exact.invokeExact(); break;
+                case 1:  r = exact.invokeExact(args[0]); break;
+                case 2:  r = exact.invokeExact(args[0], args[1]); break;
+                case 3:  r = exact.invokeExact(args[0], args[1], args[2]); break;
+                case 4:  r = exact.invokeExact(args[0], args[1], args[2], args[3]); break;
+                default: r = exact.invokeWithArguments(args);
+            }
+            return (Lazy<FV>) r;
         } catch (Throwable e) {
             // e.printStackTrace();
             throw new Error("MethodHandle evaluation error", e);
         }
     }
 
+    /** <p> The collected arguments plus the given ones. </p> */
+    private Object[] with(final Object... more) {
+        final Object[] xs = java.util.Arrays.copyOf(args, args.length + more.length);
+        System.arraycopy(more, 0, xs, args.length, more.length);
+        return xs;
+    }
+
     /**
         <p> Apply a MethodHandle to an argument and compute a result.</p>
         
@@ -110,16 +146,47 @@ public final class MH extends Unknown<FV> implements FV {
         
         <p> But in fold, (f s) could already be a function.
         If so, we must evaluate it and only then apply the next argument.
-        Therefore the common idiom is</p>
+        This is taken care of by applying both arguments at once: </p>
         <pre>
                // code for  f s x
-               new MH(f).apply(s)._e().apply(x)
+               new MH(f).apply(s, x)
         </pre>
+        <p> If f takes 2 arguments, this results in a {@link MH} that invokes f
+        directly when evaluated. Only if f takes 1 argument, the result of
+        that invokation is evaluated and applied to x. </p>
         
     */
     final public MH apply(Lazy<FV> v) {
-        final MethodHandle r = j.bindTo(v);
-        return new MH(r, arity-1);
+        return new MH(j, exact, arity-1, with(v));
+    }
+
+    /**
+        <p> Apply a MethodHandle to 2 arguments. </p>
+        <p> If the MethodHandle takes only 1 argument, its result can be 
+        another {@link MH} or a {@link Lambda}. </p>
+        @see MH#apply(Lazy)
+    */
+    final public Lazy<FV> apply(final Lazy<FV> v1, final Lazy<FV> v2) {
+        if (arity >= 2) return new MH(j, exact, arity-2, with(v1, v2));
+        return applyTo(this.apply(v1)._e(), v2);
+    }
+
+    /**
+        <p> Apply a MethodHandle to 3 arguments. </p>
+        @see MH#apply(Lazy, Lazy)
+    */
+    final public Lazy<FV> apply(final Lazy<FV> v1, final Lazy<FV> v2, final Lazy<FV> v3) {
+        if (arity >= 3) return new MH(j, exact, arity-3, with(v1, v2, v3));
+        if (arity == 2) return applyTo(this.apply(v1, v2)._e(), v3);
+        final FV f = this.apply(v1)._e();
+        if (f instanceof MH) return ((MH) f).apply(v2, v3);
+        return ((Lambda) f).apply(v2, v3);
+    }
+
+    /** <p> Apply a function value, which is a {@link MH} or a {@link Lambda}. </p> */
+    private static Lazy<FV> applyTo(final FV f, final Lazy<FV> v) {
+        if (f instanceof MH) return ((MH) f).apply(v);
+        return ((Lambda) f).apply(v);
     }
 
     /** <p> an often used {@link MethodType} for Lazy method(Lazy) </p> */
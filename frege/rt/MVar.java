@@ -0,0 +1,158 @@
+/* «•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»
+
+    Copyright © 2011, Ingo Wechsung
+    All rights reserved.
+    
+    Redistribution and use in source and binary forms, with or
+    without modification, are permitted provided that the following
+    conditions are met:
+    
+        Redistributions of source code must retain the above copyright
+        notice, this list of conditions and the following disclaimer.
+    
+        Redistributions in binary form must reproduce the above
+        copyright notice, this list of conditions and the following
+        disclaimer in the documentation and/or other materials provided
+        with the distribution. Neither the name of the copyright holder
+        nor the names of its contributors may be used to endorse or
+        promote products derived from this software without specific
+        prior written permission. 
+        
+    THIS SOFTWARE IS PROVIDED BY THE
+    COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR
+    IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+    WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+    PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER
+    OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+    SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+    LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+    USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+    AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+    LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING
+    IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+    THE POSSIBILITY OF SUCH DAMAGE.
+
+    «•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•» */
+    
+package frege.rt;
+
+// $Author$
+// $Date$
+// $Rev$
+// $Id$
+
+/**
+ * <p> Synchronized mutable variables, which are either empty or full. </p>
+ *
+ * <p> Used to realize type frege.lib.Concurrent.MVar a. </p>
+ *
+ * <p> Threads that want to take a value from an empty variable
+ * or put a value into a full one are blocked, and they are served in the
+ * order they arrived. A thread that is killed while it waits gives up its place.</p>
+ *
+ * <p> This is not a pure type. </p>
+ */
+public final class MVar<T extends Lazy<T>> {
+    private final java.util.concurrent.locks.ReentrantLock lock = 
+            new java.util.concurrent.locks.ReentrantLock();
+    /** signalled when the variable becomes full */
+    private final java.util.concurrent.locks.Condition full  = lock.newCondition();
+    /** signalled when the variable becomes empty */
+    private final java.util.concurrent.locks.Condition empty = lock.newCondition();
+    /** the threads waiting to take, in order of arrival */
+    private final java.util.ArrayDeque<Thread> takers  = new java.util.ArrayDeque<Thread>();
+    /** the threads waiting to put, in order of arrival */
+    private final java.util.ArrayDeque<Thread> putters = new java.util.ArrayDeque<Thread>();
+    private T value;
+
+    /** Construct an empty variable. */
+    public MVar()            { value = null; }
+    /** Construct a full variable. Because this is a native function, the type is correct. */
+    public MVar(final T v)   { value = v; }
+
+    /**
+     * <p> Wait on cond until it is our turn in queue and ready says so. </p>
+     */
+    private void await(final java.util.ArrayDeque<Thread> queue, 
+                        final java.util.concurrent.locks.Condition cond, final boolean full) {
+        final Thread me = Thread.currentThread();
+        queue.addLast(me);
+        try {
+            while ((value != null) != full || queue.peekFirst() != me) cond.await();
+        } catch (InterruptedException ex) {
+            queue.remove(me);
+            cond.signalAll();       // the next one may be ready now
+            throw Concurrent.killed();
+        }
+        queue.pollFirst();
+    }
+
+    /** <p> Take the value out, wait while the variable is empty. </p> */
+    public T take() {
+        lock.lock();
+        try {
+            if (value == null || !takers.isEmpty()) await(takers, full, true);
+            final T v = value;
+            value = null;
+            empty.signalAll();
+            if (!takers.isEmpty()) full.signalAll();
+            return v;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** <p> Put a value in, wait while the variable is full. </p> */
+    public void put(final T v) {
+        lock.lock();
+        try {
+            if (value != null || !putters.isEmpty()) await(putters, empty, false);
+            value = v;
+            full.signalAll();
+            if (!putters.isEmpty()) empty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** <p> Get the value without taking it, wait while the variable is empty. </p> */
+    public T read() {
+        lock.lock();
+        try {
+            while (value == null) {
+                try { full.await(); }
+                catch (InterruptedException ex) { throw Concurrent.killed(); }
+            }
+            return value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** <p> Take the value out if the variable is full and nobody waits for it, otherwise return <tt>null</tt>. </p> */
+    public T tryTake() {
+        lock.lock();
+        try {
+            if (value == null || !takers.isEmpty()) return null;
+            final T v = value;
+            value = null;
+            empty.signalAll();
+            return v;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** <p> Put a value in if the variable is empty and nobody waits to fill it. </p> */
+    public boolean tryPut(final T v) {
+        lock.lock();
+        try {
+            if (value != null || !putters.isEmpty()) return false;
+            value = v;
+            full.signalAll();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
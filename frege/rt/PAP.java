@@ -0,0 +1,129 @@
+/* «•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»
+
+    Copyright © 2011, Ingo Wechsung
+    All rights reserved.
+    
+    Redistribution and use in source and binary forms, with or
+    without modification, are permitted provided that the following
+    conditions are met:
+    
+        Redistributions of source code must retain the above copyright
+        notice, this list of conditions and the following disclaimer.
+    
+        Redistributions in binary form must reproduce the above
+        copyright notice, this list of conditions and the following
+        disclaimer in the documentation and/or other materials provided
+        with the distribution. Neither the name of the copyright holder
+        nor the names of its contributors may be used to endorse or
+        promote products derived from this software without specific
+        prior written permission. 
+        
+    THIS SOFTWARE IS PROVIDED BY THE
+    COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR
+    IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+    WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+    PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER
+    OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+    SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+    LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+    USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+    AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+    LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING
+    IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+    THE POSSIBILITY OF SUCH DAMAGE.
+
+    «•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•» */
+
+package frege.rt;
+
+// $Author$
+// $Date$
+// $Rev$
+// $Id$
+
+/**
+ * <p> Partial application of a function. </p>
+ *
+ * <p> A PAP holds a function and some, but not all, of its arguments.
+ * Applying it to further arguments makes a new PAP for the same function
+ * that holds all the arguments so far. Once all arguments are there,
+ * the result is a lazy value that passes them to the function
+ * with a single call of {@link Lambda#call} when evaluated. </p>
+ *
+ * <p> Thus, applying a function of arity <em>n</em> to one argument after
+ * the other never creates anything deeper than the function
+ * and an array of at most <em>n-1</em> arguments. </p>
+ */
+final class PAP extends Lambda {
+    /** <p> The function, this is never a PAP. </p> */
+    private final Lambda fun;
+    /** <p> The arguments collected so far, first argument first. </p> */
+    private final Lazy<FV>[] args;
+
+    @SafeVarargs @SuppressWarnings("varargs")   // the array is not exposed
+    PAP(final Lambda fun, final Lazy<FV>... args) {
+        this.fun  = fun;
+        this.args = args;
+    }
+
+    /** <p> The number of arguments still missing. </p> */
+    final public int arity() { return fun.arity() - args.length; }
+
+    final Lazy<FV> call(final Lazy<FV>[] more) { return fun.call(with(more)); }
+
+    /** <p> The collected arguments plus the given ones. </p> */
+    private Lazy<FV>[] with(final Lazy<FV>[] more) {
+        final Lazy<FV>[] xs = java.util.Arrays.copyOf(args, args.length + more.length);
+        System.arraycopy(more, 0, xs, args.length, more.length);
+        return xs;
+    }
+
+    /**
+     * <p> Add arguments, but not more than are missing. </p>
+     *
+     * @return a {@link PAP} if still arguments are missing,
+     * otherwise the lazy result of the function.
+     */
+    @SafeVarargs @SuppressWarnings("varargs")   // the array is not exposed
+    private final Lazy<FV> take(final Lazy<FV>... more) {
+        final Lazy<FV>[] xs = with(more);
+        if (xs.length < fun.arity()) return new PAP(fun, xs);
+        return new Call(fun, xs);
+    }
+
+    final public Lazy<FV> apply(final Lazy<FV> v) {
+        return take(v);
+    }
+
+    final public Lazy<FV> apply(final Lazy<FV> v1, final Lazy<FV> v2) {
+        if (arity() >= 2) return take(v1, v2);
+        return super.apply(v1, v2);
+    }
+
+    final public Lazy<FV> apply(final Lazy<FV> v1, final Lazy<FV> v2, final Lazy<FV> v3) {
+        if (arity() >= 3) return take(v1, v2, v3);
+        return super.apply(v1, v2, v3);
+    }
+
+    final public Lazy<FV> apply(final Lazy<FV> v1, final Lazy<FV> v2, final Lazy<FV> v3, final Lazy<FV> v4) {
+        if (arity() >= 4) return take(v1, v2, v3, v4);
+        return super.apply(v1, v2, v3, v4);
+    }
+
+    /**
+     * <p> The lazy value that results from a saturated PAP. </p>
+     *
+     * <p> Function and arguments are dropped once the value is evaluated,
+     * see {@link Unknown#forget}. </p>
+     */
+    private static final class Call extends Unknown<FV> {
+        private Lambda fun;
+        private Lazy<FV>[] args;
+        Call(final Lambda fun, final Lazy<FV>[] args) {
+            this.fun  = fun;
+            this.args = args;
+        }
+        final public Lazy<FV> _v() { return fun.call(args); }
+        final protected void forget() { fun = null; args = null; }
+    }
+}
@@ -0,0 +1,462 @@
+/* «•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»
+
+    Copyright © 2011, Ingo Wechsung
+    All rights reserved.
+    
+    Redistribution and use in source and binary forms, with or
+    without modification, are permitted provided that the following
+    conditions are met:
+    
+        Redistributions of source code must retain the above copyright
+        notice, this list of conditions and the following disclaimer.
+    
+        Redistributions in binary form must reproduce the above
+        copyright notice, this list of conditions and the following
+        disclaimer in the documentation and/or other materials provided
+        with the distribution. Neither the name of the copyright holder
+        nor the names of its contributors may be used to endorse or
+        promote products derived from this software without specific
+        prior written permission. 
+        
+    THIS SOFTWARE IS PROVIDED BY THE
+    COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR
+    IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+    WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+    PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER
+    OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+    SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+    LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+    USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+    AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+    LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING
+    IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+    THE POSSIBILITY OF SUCH DAMAGE.
+
+    «•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•» */
+    
+package frege.rt;
+
+// $Author$
+// $Date$
+// $Rev$
+// $Id$
+
+/**
+ * <p> Parallel bulk operations on arrays. </p>
+ *
+ * <p> Used to realize <tt>pmap</tt>, <tt>pzipWith</tt>, <tt>pfold</tt>, <tt>pscan</tt>, 
+ * <tt>pfilter</tt> and <tt>psortBy</tt> of the array types in frege.prelude.Arrays. </p>
+ *
+ * <p> The index range is split in halves with fork/join tasks until the parts have 
+ * no more than {@link #grain} elements, which are then processed in a simple loop.
+ * The results of the function applications are evaluated in the tasks.
+ * How the range is split depends only on its size, so the results are the same
+ * no matter how many threads there are, even if the function passed to 
+ * <tt>pfold</tt> or <tt>pscan</tt> is not quite associative, 
+ * like addition of floating point numbers. </p>
+ *
+ * <p> The tasks run in the pool of the {@link Scheduler}. If the scheduler kind is not 
+ * <tt>forkjoin</tt>, everything is done sequentially. </p>
+ *
+ * <p> Unset elements (that is, <tt>null</tt>s) of frege arrays are passed through by
+ * <tt>pmap</tt> and <tt>pzipWith</tt> and ignored by the other operations. </p>
+ */
+public final class ParArray {
+    private ParArray() {}
+
+    /** 
+     * <p> Parts of arrays that are not larger than this are processed sequentially.
+     * Configured with system property <tt>frege.grain</tt>, default is 1024. </p>
+     */
+    public final static int grain = Math.max(1, Integer.getInteger("frege.grain", 1024));
+
+    /**
+     * <p> Uniform access to the elements of the different array types. </p>
+     */
+    private abstract static class Vec {
+        abstract int       length();
+        /** the element at i as lazy value, or null if it is not set */
+        abstract Lazy<FV>  get(int i);
+        abstract void      set(int i, Lazy<FV> v);
+        /** a new array of the same type */
+        abstract Vec       make(int n);
+    }
+
+    private final static class Values extends Vec {
+        final Array<FV> a;
+        Values(final Array<FV> a)       { this.a = a; }
+        int      length()               { return a.length(); }
+        Lazy<FV> get(final int i)       { return a.getAt(i); }
+        void     set(final int i, final Lazy<FV> v)   { a.setAt(i, v == null ? null : v._e()); }
+        Vec      make(final int n)      { return new Values(new Array<FV>(n)); }
+    }
+
+    private final static class Ints extends Vec {
+        final int[] a;
+        Ints(final int[] a)             { this.a = a; }
+        int      length()               { return a.length; }
+        Lazy<FV> get(final int i)       { return Box.Int.mk(a[i]); }
+        void     set(final int i, final Lazy<FV> v)   { a[i] = ((Box.Int) v._e()).j; }
+        Vec      make(final int n)      { return new Ints(new int[n]); }
+    }
+
+    private final static class Strings extends Vec {
+        final String[] a;
+        Strings(final String[] a)       { this.a = a; }
+        int      length()               { return a.length; }
+        Lazy<FV> get(final int i)       { return a[i] == null ? null : Box.mk(a[i]); }
+        void     set(final int i, final Lazy<FV> v)   { a[i] = v == null ? null : Box.<String>box(v._e()).j; }
+        Vec      make(final int n)      { return new Strings(new String[n]); }
+    }
+
+    /** <p> The work for a part of the index range. </p> */
+    private abstract static class Body {
+        abstract void run(int from, int to);
+    }
+
+    /** <p> Split an index range in halves, run the body on the parts. </p> */
+    private final static class Range extends java.util.concurrent.RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        final Body body;
+        final int from, to, grain;
+        Range(final Body body, final int from, final int to, final int grain) {
+            this.body = body; this.from = from; this.to = to; this.grain = grain;
+        }
+        protected void compute() {
+            if (to - from <= grain || !inForkJoinPool()) body.run(from, to);
+            else {
+                final int mid = (from + to) >>> 1;
+                invokeAll(new Range(body, from, mid, grain), new Range(body, mid, to, grain));
+            }
+        }
+    }
+
+    /** 
+     * <p> Combine a part of the array with an associative function. </p>
+     *
+     * <p> The range is always split down to {@link #grain}, also when there is no pool,
+     * so that the grouping of the operations, and hence the result of an operation 
+     * that is associative only approximately, like floating point addition,
+     * does not depend on the scheduler. </p>
+     */
+    private final static class Fold extends java.util.concurrent.RecursiveTask<FV> {
+        private static final long serialVersionUID = 1L;
+        final Lambda op;
+        final Vec v;
+        final int from, to;
+        Fold(final Lambda op, final Vec v, final int from, final int to) {
+            this.op = op; this.v = v; this.from = from; this.to = to;
+        }
+        protected FV compute() {
+            if (to - from <= grain) {
+                FV acc = null;
+                for (int i = from; i < to; i++) acc = combine(op, acc, v.get(i));
+                return acc;
+            }
+            final int mid = (from + to) >>> 1;
+            final Fold left = new Fold(op, v, from, mid);
+            if (!inForkJoinPool()) 
+                return combine(op, left.compute(), new Fold(op, v, mid, to).compute());
+            left.fork();
+            final FV r = new Fold(op, v, mid, to).compute();
+            return combine(op, left.join(), r);
+        }
+    }
+
+    /** <p> Apply op and evaluate the result, where null stands for "no value". </p> */
+    private static FV combine(final Lambda op, final Lazy<FV> a, final Lazy<FV> b) {
+        if (a == null) return b == null ? null : b._e();
+        if (b == null) return a._e();
+        return op.apply(a, b)._e();
+    }
+
+    /** <p> Run a task in the pool, unless we are in one already, or are sequential. </p> */
+    private static <V> V run(final java.util.concurrent.ForkJoinTask<V> task) {
+        if (java.util.concurrent.ForkJoinTask.inForkJoinPool() || !Scheduler.kind.equals("forkjoin"))
+            return task.invoke();
+        return Scheduler.pool().invoke(task);
+    }
+
+    private static void run(final Body body, final int n, final int grain) {
+        run(new Range(body, 0, n, grain));
+    }
+
+    private static Vec map(final Lambda f, final Vec src) {
+        final Vec dst = src.make(src.length());
+        run(new Body() {
+            void run(final int from, final int to) {
+                for (int i = from; i < to; i++) {
+                    final Lazy<FV> x = src.get(i);
+                    dst.set(i, x == null ? null : f.apply(x));
+                }
+            }
+        }, src.length(), grain);
+        return dst;
+    }
+
+    private static Vec zipWith(final Lambda f, final Vec a, final Vec b) {
+        final int n = Math.min(a.length(), b.length());
+        final Vec dst = a.make(n);
+        run(new Body() {
+            void run(final int from, final int to) {
+                for (int i = from; i < to; i++) {
+                    final Lazy<FV> x = a.get(i);
+                    final Lazy<FV> y = b.get(i);
+                    dst.set(i, x == null || y == null ? null : f.apply(x, y));
+                }
+            }
+        }, n, grain);
+        return dst;
+    }
+
+    private static FV fold(final Lambda op, final Lazy<FV> z, final Vec v) {
+        return combine(op, z, run(new Fold(op, v, 0, v.length())));
+    }
+
+    /**
+     * <p> Scan in three steps: compute the totals of blocks of {@link #grain} elements
+     * in parallel, then the start values of the blocks sequentially, 
+     * then the elements of the blocks in parallel. </p>
+     */
+    private static Vec scan(final Lambda op, final Lazy<FV> z, final Vec v) {
+        final int n = v.length();
+        final int blocks = (n + grain - 1) / grain;
+        final Vec dst = v.make(n + 1);
+        final FV[] start = new FV[blocks + 1];
+        run(new Body() {
+            void run(final int from, final int to) {
+                for (int b = from; b < to; b++) {
+                    FV acc = null;
+                    for (int i = b * grain, end = Math.min(n, i + grain); i < end; i++)
+                        acc = combine(op, acc, v.get(i));
+                    start[b+1] = acc;
+                }
+            }
+        }, blocks, 1);
+        start[0] = z._e();
+        for (int b = 0; b < blocks; b++) start[b+1] = combine(op, start[b], start[b+1]);
+        dst.set(0, start[0]);
+        run(new Body() {
+            void run(final int from, final int to) {
+                for (int b = from; b < to; b++) {
+                    FV acc = start[b];
+                    for (int i = b * grain, end = Math.min(n, i + grain); i < end; i++) {
+                        acc = combine(op, acc, v.get(i));
+                        dst.set(i+1, acc);
+                    }
+                }
+            }
+        }, blocks, 1);
+        return dst;
+    }
+
+    /**
+     * <p> Filter in three steps: test the elements in parallel and count the hits
+     * per block, compute where the blocks go, then copy in parallel. </p>
+     */
+    private static Vec filter(final Lambda p, final Vec v) {
+        final int n = v.length();
+        final int blocks = (n + grain - 1) / grain;
+        final boolean[] keep = new boolean[n];
+        final int[] offset = new int[blocks + 1];
+        run(new Body() {
+            void run(final int from, final int to) {
+                for (int b = from; b < to; b++) {
+                    int count = 0;
+                    for (int i = b * grain, end = Math.min(n, i + grain); i < end; i++) {
+                        final Lazy<FV> x = v.get(i);
+                        if (x != null && ((Box.Bool) p.apply(x)._e()).j) { keep[i] = true; count++; }
+                    }
+                    offset[b+1] = count;
+                }
+            }
+        }, blocks, 1);
+        for (int b = 0; b < blocks; b++) offset[b+1] += offset[b];
+        final Vec dst = v.make(offset[blocks]);
+        run(new Body() {
+            void run(final int from, final int to) {
+                for (int b = from; b < to; b++) {
+                    int k = offset[b];
+                    for (int i = b * grain, end = Math.min(n, i + grain); i < end; i++) 
+                        if (keep[i]) dst.set(k++, v.get(i));
+                }
+            }
+        }, blocks, 1);
+        return dst;
+    }
+
+    /** <p> Apply the "greater than" function. </p> */
+    private static boolean gt(final Lambda gt, final FV a, final FV b) {
+        return ((Box.Bool) gt.apply(a, b)._e()).j;
+    }
+
+    /**
+     * <p> Stable merge sort of a part of an array. </p>
+     *
+     * <p> The halves are sorted into the other buffer, and then merged into 
+     * the buffer where the result is wanted. The merge is parallel, too. </p>
+     */
+    private final static class Sort extends java.util.concurrent.RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        final Lambda gt;
+        final FV[] a, b;
+        final int from, to;
+        final boolean toB;
+        Sort(final Lambda gt, final FV[] a, final FV[] b, final int from, final int to, final boolean toB) {
+            this.gt = gt; this.a = a; this.b = b; this.from = from; this.to = to; this.toB = toB;
+        }
+        protected void compute() {
+            if (to - from <= grain || !inForkJoinPool()) sort(gt, a, b, from, to, toB);
+            else {
+                final int mid = (from + to) >>> 1;
+                invokeAll(new Sort(gt, a, b, from, mid, !toB), new Sort(gt, a, b, mid, to, !toB));
+                new Merge(gt, toB ? a : b, from, mid, mid, to, toB ? b : a, from).compute();
+            }
+        }
+    }
+
+    /** <p> Sequential version of {@link Sort}, with insertion sort for small parts. </p> */
+    private static void sort(final Lambda gt, final FV[] a, final FV[] b, 
+                                final int from, final int to, final boolean toB) {
+        if (to - from <= 16) {
+            for (int i = from + 1; i < to; i++) {
+                final FV x = a[i];
+                int j = i;
+                for (; j > from && gt(gt, a[j-1], x); j--) a[j] = a[j-1];
+                a[j] = x;
+            }
+            if (toB) System.arraycopy(a, from, b, from, to - from);
+        }
+        else {
+            final int mid = (from + to) >>> 1;
+            sort(gt, a, b, from, mid, !toB);
+            sort(gt, a, b, mid, to, !toB);
+            merge(gt, toB ? a : b, from, mid, mid, to, toB ? b : a, from);
+        }
+    }
+
+    /** <p> Merge two sorted runs, elements of the first run come first when equal. </p> */
+    private static void merge(final Lambda gt, final FV[] src, int i, final int ie, int j, final int je,
+                                final FV[] dst, int k) {
+        while (i < ie && j < je) dst[k++] = gt(gt, src[i], src[j]) ? src[j++] : src[i++];
+        while (i < ie) dst[k++] = src[i++];
+        while (j < je) dst[k++] = src[j++];
+    }
+
+    /**
+     * <p> Parallel merge: split the longer run in the middle, find where its middle
+     * element goes in the other run, and merge the two pairs of parts. </p>
+     */
+    private final static class Merge extends java.util.concurrent.RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        final Lambda gt;
+        final FV[] src, dst;
+        final int i, ie, j, je, k;
+        Merge(final Lambda gt, final FV[] src, final int i, final int ie, final int j, final int je,
+                final FV[] dst, final int k) {
+            this.gt = gt; this.src = src; this.i = i; this.ie = ie; this.j = j; this.je = je; 
+            this.dst = dst; this.k = k;
+        }
+        protected void compute() {
+            final int n1 = ie - i, n2 = je - j;
+            if (n1 + n2 <= grain || !inForkJoinPool()) {
+                merge(gt, src, i, ie, j, je, dst, k);
+                return;
+            }
+            int m1, m2;
+            if (n1 >= n2) {
+                // first element of the second run that is not less than src[m1]
+                m1 = (i + ie) >>> 1;
+                int lo = j, hi = je;
+                while (lo < hi) {
+                    final int m = (lo + hi) >>> 1;
+                    if (gt(gt, src[m1], src[m])) lo = m + 1; else hi = m;
+                }
+                m2 = lo;
+            } else {
+                // first element of the first run that is greater than src[m2]
+                m2 = (j + je) >>> 1;
+                int lo = i, hi = ie;
+                while (lo < hi) {
+                    final int m = (lo + hi) >>> 1;
+                    if (gt(gt, src[m], src[m2])) hi = m; else lo = m + 1;
+                }
+                m1 = lo;
+            }
+            invokeAll(new Merge(gt, src, i, m1, j, m2, dst, k),
+                      new Merge(gt, src, m1, ie, m2, je, dst, k + (m1 - i) + (m2 - j)));
+        }
+    }
+
+    /**
+     * <p> Sort a frege array with a stable merge sort. </p>
+     *
+     * <p> The result is a new array without the unset elements. </p>
+     *
+     * @param gt a function that tells if its first argument must come after the second one
+     */
+    public static Array<FV> sort(final Lambda gt, final Array<FV> arr) {
+        int n = 0;
+        for (int i = 0; i < arr.length(); i++) if (arr.getAt(i) != null) n++;
+        final FV[] a = new FV[n];
+        for (int i = 0, k = 0; i < arr.length(); i++) {
+            final FV x = arr.getAt(i);
+            if (x != null) a[k++] = x;
+        }
+        run(new Sort(gt, a, new FV[n], 0, n, false));
+        final Array<FV> result = new Array<FV>(n);
+        for (int i = 0; i < n; i++) result.setAt(i, a[i]);
+        return result;
+    }
+
+    // frege arrays
+    public static Array<FV> map(final Lambda f, final Array<FV> a) {
+        return ((Values) map(f, new Values(a))).a;
+    }
+    public static Array<FV> zipWith(final Lambda f, final Array<FV> a, final Array<FV> b) {
+        return ((Values) zipWith(f, new Values(a), new Values(b))).a;
+    }
+    public static FV fold(final Lambda op, final Lazy<FV> z, final Array<FV> a) {
+        return fold(op, z, new Values(a))._e();
+    }
+    public static Array<FV> scan(final Lambda op, final Lazy<FV> z, final Array<FV> a) {
+        return ((Values) scan(op, z, new Values(a))).a;
+    }
+    public static Array<FV> filter(final Lambda p, final Array<FV> a) {
+        return ((Values) filter(p, new Values(a))).a;
+    }
+
+    // int arrays
+    public static int[] map(final Lambda f, final int[] a) {
+        return ((Ints) map(f, new Ints(a))).a;
+    }
+    public static int[] zipWith(final Lambda f, final int[] a, final int[] b) {
+        return ((Ints) zipWith(f, new Ints(a), new Ints(b))).a;
+    }
+    public static int fold(final Lambda op, final int z, final int[] a) {
+        return ((Box.Int) fold(op, Box.Int.mk(z), new Ints(a))._e()).j;
+    }
+    public static int[] scan(final Lambda op, final int z, final int[] a) {
+        return ((Ints) scan(op, Box.Int.mk(z), new Ints(a))).a;
+    }
+    public static int[] filter(final Lambda p, final int[] a) {
+        return ((Ints) filter(p, new Ints(a))).a;
+    }
+
+    // string arrays
+    public static String[] map(final Lambda f, final String[] a) {
+        return ((Strings) map(f, new Strings(a))).a;
+    }
+    public static String[] zipWith(final Lambda f, final String[] a, final String[] b) {
+        return ((Strings) zipWith(f, new Strings(a), new Strings(b))).a;
+    }
+    public static String fold(final Lambda op, final String z, final String[] a) {
+        return Box.<String>box(fold(op, Box.mk(z), new Strings(a))._e()).j;
+    }
+    public static String[] scan(final Lambda op, final String z, final String[] a) {
+        return ((Strings) scan(op, Box.mk(z), new Strings(a))).a;
+    }
+    public static String[] filter(final Lambda p, final String[] a) {
+        return ((Strings) filter(p, new Strings(a))).a;
+    }
+}
@@ -0,0 +1,306 @@
+/* «•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»
+
+    Copyright © 2011, Ingo Wechsung
+    All rights reserved.
+    
+    Redistribution and use in source and binary forms, with or
+    without modification, are permitted provided that the following
+    conditions are met:
+    
+        Redistributions of source code must retain the above copyright
+        notice, this list of conditions and the following disclaimer.
+    
+        Redistributions in binary form must reproduce the above
+        copyright notice, this list of conditions and the following
+        disclaimer in the documentation and/or other materials provided
+        with the distribution. Neither the name of the copyright holder
+        nor the names of its contributors may be used to endorse or
+        promote products derived from this software without specific
+        prior written permission. 
+        
+    THIS SOFTWARE IS PROVIDED BY THE
+    COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR
+    IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+    WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+    PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER
+    OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+    SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+    LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+    USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+    AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+    LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING
+    IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+    THE POSSIBILITY OF SUCH DAMAGE.
+
+    «•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•» */
+    
+package frege.rt;
+
+// $Author$
+// $Date$
+// $Rev$
+// $Id$
+
+/**
+ * <p> Software transactional memory. </p>
+ *
+ * <p> Used to realize the STM monad of the Prelude, which
+ * wraps an IO action that runs in a transaction. </p>
+ *
+ * <p> Transactions are optimistic: they read {@link TVar}s without locking, 
+ * and keep the values they want to write in a private log.
+ * Every read is checked against the version of the global clock
+ * that was current when the transaction began, so that a transaction 
+ * never sees an inconsistent state. (When a variable is found to be newer,
+ * the transaction tries to advance its start version before it gives up.)</p>
+ *
+ * <p> To commit, the variables in the write log get their lock bit set with 
+ * compare-and-set, the clock is advanced, the variables that were read are validated,
+ * and the new values are published together with the new version.
+ * Nobody ever waits for a lock: a transaction that finds a variable locked or changed
+ * releases what it holds and starts again, after a short random pause when this happens
+ * repeatedly. </p>
+ *
+ * <p> A transaction that does <tt>retry</tt> is suspended until one of the variables
+ * it has read is changed by another transaction. </p>
+ */
+public final class STM {
+    private STM() {}
+
+    /** <p> The global version clock. </p> */
+    private final static java.util.concurrent.atomic.AtomicLong clock = 
+            new java.util.concurrent.atomic.AtomicLong();
+
+    /** <p> The transaction of the current thread, if any. </p> */
+    private final static ThreadLocal<Tx> current = new ThreadLocal<Tx>();
+
+    /**
+     * <p> Exception used to abandon the current attempt of a transaction. </p>
+     */
+    private final static class Signal extends Error {
+        private static final long serialVersionUID = 1L;
+        Signal(final String what) { super(what); }
+        @Override public Throwable fillInStackTrace() { return this; }
+    }
+    /** <p> Thrown when the transaction has seen a conflicting change. </p> */
+    private final static Signal CONFLICT = new Signal("STM conflict");
+    /** <p> Thrown by <tt>retry</tt>. </p> */
+    private final static Signal RETRY = new Signal("STM retry");
+
+    /** <p> A thread that waits in <tt>retry</tt>. </p> */
+    final static class Sleeper {
+        final Thread thread = Thread.currentThread();
+        volatile boolean woken = false;
+        final void wake() {
+            if (!woken) { woken = true; java.util.concurrent.locks.LockSupport.unpark(thread); }
+        }
+    }
+
+    /** <p> List of sleepers that wait for a change of a {@link TVar}. </p> */
+    final static class Waiter {
+        final Sleeper sleeper;
+        final Waiter next;
+        Waiter(final Sleeper s, final Waiter n) { sleeper = s; next = n; }
+    }
+
+    /**
+     * <p> The log of a transaction. </p>
+     */
+    private final static class Tx {
+        /** the version of the clock the reads are valid for */
+        long rv;
+        /** how often the transaction has failed in a row */
+        int conflicts;
+        /** the variables read so far, each one once */
+        final java.util.ArrayList<TVar<?>> reads = new java.util.ArrayList<TVar<?>>();
+        /** the same variables as {@link Tx#reads}, to find out quickly if one was read already */
+        final java.util.Set<TVar<?>> readSet = 
+                java.util.Collections.newSetFromMap(new java.util.IdentityHashMap<TVar<?>, Boolean>());
+        /** the values to write */
+        java.util.IdentityHashMap<TVar<?>, Object> writes = new java.util.IdentityHashMap<TVar<?>, Object>();
+
+        void begin() {
+            rv = clock.get();
+            reads.clear();
+            readSet.clear();
+            writes.clear();
+        }
+
+        /**
+         * <p> Check if all variables read so far are still valid at version <tt>rv</tt>. </p>
+         */
+        boolean valid(final long rv) {
+            for (int i = 0; i < reads.size(); i++) {
+                final TVar<?> v = reads.get(i);
+                final long s = v.stamp;
+                if ((s >>> 1) > rv || (s & 1L) != 0 && !writes.containsKey(v)) return false;
+            }
+            return true;
+        }
+
+        @SuppressWarnings("unchecked")
+        <T extends Lazy<T>> T read(final TVar<T> v) {
+            if (!writes.isEmpty()) {
+                final Object w = writes.get(v);
+                if (w != null) return (T) w;
+            }
+            for (;;) {
+                final long s1 = v.stamp;
+                final T x = v.value;
+                final long s2 = v.stamp;
+                if (s1 == s2 && (s1 & 1L) == 0) {
+                    if ((s1 >>> 1) <= rv) {
+                        if (readSet.add(v)) reads.add(v);
+                        return x;
+                    }
+                    // the variable is newer than the transaction, try to advance
+                    final long now = clock.get();
+                    if (!valid(rv)) throw CONFLICT;
+                    rv = now;
+                }
+                else if ((s2 & 1L) != 0) throw CONFLICT;
+            }
+        }
+
+        /**
+         * <p> Try to commit the write log. </p>
+         */
+        boolean commit() {
+            if (writes.isEmpty()) return true;
+            final int n = writes.size();
+            final TVar<?>[] vars = new TVar<?>[n];
+            final long[] stamps = new long[n];
+            int locked = 0;
+            for (TVar<?> v : writes.keySet()) {
+                final long s = v.stamp;
+                if (!v.lock(s)) {
+                    unlock(vars, stamps, locked);
+                    return false;
+                }
+                vars[locked] = v;
+                stamps[locked++] = s;
+            }
+            final long wv = clock.incrementAndGet();
+            if (wv != rv + 1 && !valid(rv)) {
+                unlock(vars, stamps, locked);
+                return false;
+            }
+            final long ws = wv << 1;
+            for (int i = 0; i < n; i++) vars[i].publish(writes.get(vars[i]), ws);
+            for (int i = 0; i < n; i++) vars[i].wakeWaiters();
+            return true;
+        }
+
+        private static void unlock(final TVar<?>[] vars, final long[] stamps, final int n) {
+            for (int i = 0; i < n; i++) vars[i].stamp = stamps[i];
+        }
+
+        /**
+         * <p> Wait a little, the more the more often we failed. </p>
+         */
+        void backoff() {
+            if (++conflicts > 2) {
+                final int shift = Math.min(conflicts, 20);
+                java.util.concurrent.locks.LockSupport.parkNanos(
+                    java.util.concurrent.ThreadLocalRandom.current().nextLong(1L << shift));
+            }
+        }
+
+        /**
+         * <p> Wait until some variable we have read changes. </p>
+         */
+        void await() {
+            final Sleeper me = new Sleeper();
+            try {
+                for (int i = 0; i < reads.size(); i++) reads.get(i).addWaiter(me);
+                if (!valid(rv)) return;
+                while (!me.woken) {
+                    java.util.concurrent.locks.LockSupport.park(this);
+                    if (Thread.interrupted()) throw Concurrent.killed();
+                }
+            } finally {
+                me.woken = true;
+            }
+        }
+    }
+
+    /**
+     * <p> The transaction of the current thread, or <tt>null</tt>. </p>
+     *
+     * <p> For {@link Trampoline}, which continues deep evaluations in other threads. </p>
+     */
+    static Object transaction() { return current.get(); }
+
+    /** <p> Set the transaction of the current thread, see {@link STM#transaction()}. </p> */
+    static void transaction(final Object tx) {
+        if (tx == null) current.remove();
+        else current.set((Tx) tx);
+    }
+
+    private static Tx tx() {
+        final Tx tx = current.get();
+        if (tx == null) throw new IllegalStateException("TVar access outside of a transaction");
+        return tx;
+    }
+
+    /**
+     * <p> Perform an IO action as a transaction, and repeat it until it succeeds. </p>
+     *
+     * <p> An exception thrown by the action ends the transaction, and the writes are
+     * discarded. </p>
+     */
+    public static FV atomically(final Lambda action) {
+        if (current.get() != null) throw new IllegalStateException("nested atomically");
+        final Tx tx = new Tx();
+        current.set(tx);
+        try {
+            for (;;) {
+                tx.begin();
+                try {
+                    final FV r = Concurrent.perform(action)._e();
+                    if (tx.commit()) return r;
+                    tx.backoff();
+                } catch (Signal s) {
+                    if (s == RETRY) { tx.conflicts = 0; tx.await(); }
+                    else tx.backoff();
+                }
+            }
+        } finally {
+            current.remove();
+        }
+    }
+
+    /** <p> Read a {@link TVar} in the current transaction. </p> */
+    public static <T extends Lazy<T>> T read(final TVar<T> v) {
+        return tx().read(v);
+    }
+
+    /** <p> Write a {@link TVar} in the current transaction. </p> */
+    public static <T extends Lazy<T>> void write(final TVar<T> v, final T x) {
+        tx().writes.put(v, x);
+    }
+
+    /** <p> Abandon the current transaction, and run it again when something has changed. </p> */
+    public static FV retry() {
+        throw RETRY;
+    }
+
+    /**
+     * <p> Run the first action, and when it retries, forget its writes and run the second one. </p>
+     *
+     * <p> The variables read by the first action remain in the read set, so that the whole 
+     * transaction is run again when one of them changes. </p>
+     */
+    public static FV orElse(final Lambda first, final Lambda second) {
+        final Tx tx = tx();
+        final java.util.IdentityHashMap<TVar<?>, Object> saved = 
+                new java.util.IdentityHashMap<TVar<?>, Object>(tx.writes);
+        try {
+            return Concurrent.perform(first)._e();
+        } catch (Signal s) {
+            if (s != RETRY) throw s;
+            tx.writes = saved;
+            return Concurrent.perform(second)._e();
+        }
+    }
+}
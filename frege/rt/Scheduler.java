@@ -0,0 +1,232 @@
+/* «•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»
+
+    Copyright © 2011, Ingo Wechsung
+    All rights reserved.
+    
+    Redistribution and use in source and binary forms, with or
+    without modification, are permitted provided that the following
+    conditions are met:
+    
+        Redistributions of source code must retain the above copyright
+        notice, this list of conditions and the following disclaimer.
+    
+        Redistributions in binary form must reproduce the above
+        copyright notice, this list of conditions and the following
+        disclaimer in the documentation and/or other materials provided
+        with the distribution. Neither the name of the copyright holder
+        nor the names of its contributors may be used to endorse or
+        promote products derived from this software without specific
+        prior written permission. 
+        
+    THIS SOFTWARE IS PROVIDED BY THE
+    COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR
+    IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+    WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+    PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER
+    OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+    SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+    LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+    USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+    AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+    LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING
+    IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+    THE POSSIBILITY OF SUCH DAMAGE.
+
+    «•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•» */
+    
+package frege.rt;
+
+// $Author$
+// $Date$
+// $Rev$
+// $Id$
+
+/**
+ * <p> The thread pools frege code runs in. </p>
+ *
+ * <p> Ad hoc parallelism with <tt>par</tt> works only in frege code that runs in a 
+ * {@link java.util.concurrent.ForkJoinPool}. The java <tt>main</tt> method of a frege
+ * program takes care of this through {@link frege.RT#fjMain}, and
+ * code that calls frege code from java can do the same with {@link #evaluate}. </p>
+ *
+ * <p> The following system properties are recognized: </p>
+ * <dl>
+ * <dt><tt>frege.scheduler</tt></dt>
+ * <dd> How {@link frege.RT#fjMain} runs the program: <tt>forkjoin</tt> (the default) 
+ *      runs it in the fork/join pool, <tt>virtual</tt> in a virtual thread (if the java 
+ *      runtime has them, otherwise in a new thread), and <tt>sequential</tt> in the main thread.
+ *      Only with <tt>forkjoin</tt>, <tt>par</tt> does anything. 
+ *      For compatibility, <tt>frege.parallel=false</tt> means <tt>sequential</tt>.</dd>
+ * <dt><tt>frege.parallelism</tt></dt>
+ * <dd> The parallelism of the fork/join pool, the default is twice the number of processors.</dd>
+ * <dt><tt>frege.asyncmode</tt></dt>
+ * <dd> If <tt>true</tt>, the workers of the fork/join pool run forked tasks 
+ *      that are never joined in FIFO order, see 
+ *      {@link java.util.concurrent.ForkJoinPool#ForkJoinPool(int, 
+ *      java.util.concurrent.ForkJoinPool.ForkJoinWorkerThreadFactory, 
+ *      Thread.UncaughtExceptionHandler, boolean)}.</dd>
+ * <dt><tt>frege.poolstats</tt></dt>
+ * <dd> If <tt>true</tt>, statistics of the fork/join pool are printed on standard error
+ *      when the java VM shuts down.</dd>
+ * </dl>
+ *
+ * <p> Embedders can supply their own pool with {@link #setPool}. </p>
+ */
+public final class Scheduler {
+    private Scheduler() {}
+
+    /** <p> The value of <tt>frege.scheduler</tt>, in lower case. </p> */
+    public final static String kind = kindProperty();
+    /** <p> The parallelism of the default pool. </p> */
+    public final static int parallelism = parallelismProperty();
+    /** <p> The async mode of the default pool. </p> */
+    public final static boolean asyncMode = Boolean.getBoolean("frege.asyncmode");
+    /** <p> Tell if pool statistics are wanted. </p> */
+    public final static boolean stats = Boolean.getBoolean("frege.poolstats");
+
+    private static String kindProperty() {
+        // This is the case when the VM was started with -Dfrege.parallel=x
+        // and x is not equal, ignoring case, to the string "true".
+        final String prop = System.getProperty("frege.parallel");
+        if (prop != null && !Boolean.valueOf(prop)) return "sequential";
+        return System.getProperty("frege.scheduler", "forkjoin").toLowerCase();
+    }
+
+    private static int parallelismProperty() {
+        final int dflt = 2*Runtime.getRuntime().availableProcessors();
+        try {
+            final int n = Integer.parseInt(System.getProperty("frege.parallelism", Integer.toString(dflt)));
+            return n > 0 ? n : dflt;
+        } catch (NumberFormatException ex) {
+            return dflt;
+        }
+    }
+
+    private static java.util.concurrent.ForkJoinPool pool = null;
+    private static java.util.concurrent.ExecutorService executor = null;
+
+    static {
+        if (stats) Runtime.getRuntime().addShutdownHook(new Thread() {
+            public void run() {
+                final java.util.concurrent.ForkJoinPool p;
+                synchronized (Scheduler.class) { p = pool; }
+                if (p != null) System.err.println(statistics(p));
+            }
+        });
+    }
+
+    /**
+     * <p> Use the given pool for frege code. </p>
+     *
+     * <p> This is for applications that embed frege code and have a fork/join pool
+     * already. It must be called before the pool is needed the first time,
+     * otherwise the default pool has been created already and continues to run. 
+     * The pool is never shut down by the frege runtime. </p>
+     */
+    public static synchronized void setPool(final java.util.concurrent.ForkJoinPool p) {
+        if (p == null) throw new NullPointerException("Scheduler.setPool(null)");
+        pool = p;
+    }
+
+    /**
+     * <p> The pool for frege code. </p>
+     *
+     * <p> Unless one has been given with {@link #setPool}, a pool with 
+     * {@link #parallelism} and {@link #asyncMode} is created, whose worker threads 
+     * are daemon threads. </p>
+     */
+    public static synchronized java.util.concurrent.ForkJoinPool pool() {
+        if (pool == null) 
+            pool = new java.util.concurrent.ForkJoinPool(parallelism, 
+                        java.util.concurrent.ForkJoinPool.defaultForkJoinWorkerThreadFactory,
+                        null, asyncMode);
+        return pool;
+    }
+
+    /**
+     * <p> An executor that runs each task in a thread of its own. </p>
+     *
+     * <p> The threads are virtual threads, if the java runtime has them, otherwise
+     * daemon threads that are kept for reuse a while. This is for IO actions
+     * that block, where it does not hurt to have thousands of them. </p>
+     */
+    public static synchronized java.util.concurrent.ExecutorService executor() {
+        if (executor == null) {
+            try {
+                executor = (java.util.concurrent.ExecutorService) 
+                    java.util.concurrent.Executors.class
+                        .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (Exception ex) {
+                executor = java.util.concurrent.Executors.newCachedThreadPool(
+                    new java.util.concurrent.ThreadFactory() {
+                        public Thread newThread(final Runnable r) {
+                            final Thread t = new Thread(r);
+                            t.setDaemon(true);
+                            return t;
+                        }
+                    });
+            }
+        }
+        return executor;
+    }
+
+    private static <V> java.util.concurrent.Callable<V> action(final Lazy<V> val) {
+        return new java.util.concurrent.Callable<V> () {
+            public V call() { return val._e(); }
+        };
+    }
+
+    /**
+     * <p> Evaluate a value in the fork/join pool and wait for the result. </p>
+     *
+     * <p> This is what java code that calls frege code should use, so that
+     * <tt>par</tt> is effective in the frege code.
+     * If the current thread is a fork/join worker already, or if 
+     * {@link #kind} is not <tt>forkjoin</tt>, the value is simply evaluated. </p>
+     *
+     * <p> Exceptions thrown during evaluation are rethrown, checked exceptions 
+     * wrapped in an {@link Error}. </p>
+     */
+    public static <V> V evaluate(final Lazy<V> val) {
+        if (!kind.equals("forkjoin") || java.util.concurrent.ForkJoinTask.inForkJoinPool())
+            return val._e();
+        return await(pool().submit(action(val)));
+    }
+
+    /** wait for completion of a task, rethrow unchecked exceptions from it */
+    private static <V> V await(final java.util.concurrent.Future<V> task) {
+        try {
+            return task.get();
+        } catch (java.util.concurrent.ExecutionException ex) {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new Error(cause);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new Error(ex);
+        }
+    }
+
+    /**
+     * <p> Run a program as told by {@link #kind}, see {@link frege.RT#fjMain}. </p>
+     */
+    public static <V> void main(final Lazy<V> val) {
+        if (kind.equals("sequential")) val._e();
+        else if (kind.equals("virtual")) await(executor().submit(action(val)));
+        else evaluate(val);
+    }
+
+    /**
+     * <p> Statistics about a fork/join pool. </p>
+     */
+    public static String statistics(final java.util.concurrent.ForkJoinPool p) {
+        return "pool: parallelism " + p.getParallelism()
+                + ", threads " + p.getPoolSize()
+                + ", active " + p.getActiveThreadCount()
+                + ", running " + p.getRunningThreadCount()
+                + ", steals " + p.getStealCount()
+                + ", queued tasks " + p.getQueuedTaskCount()
+                + ", queued submissions " + p.getQueuedSubmissionCount();
+    }
+}
@@ -0,0 +1,214 @@
+/* «•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»
+
+    Copyright © 2011, Ingo Wechsung
+    All rights reserved.
+    
+    Redistribution and use in source and binary forms, with or
+    without modification, are permitted provided that the following
+    conditions are met:
+    
+        Redistributions of source code must retain the above copyright
+        notice, this list of conditions and the following disclaimer.
+    
+        Redistributions in binary form must reproduce the above
+        copyright notice, this list of conditions and the following
+        disclaimer in the documentation and/or other materials provided
+        with the distribution. Neither the name of the copyright holder
+        nor the names of its contributors may be used to endorse or
+        promote products derived from this software without specific
+        prior written permission. 
+        
+    THIS SOFTWARE IS PROVIDED BY THE
+    COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR
+    IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+    WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+    PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER
+    OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+    SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+    LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+    USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+    AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+    LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING
+    IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+    THE POSSIBILITY OF SUCH DAMAGE.
+
+    «•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•» */
+    
+package frege.rt;
+
+// $Author$
+// $Date$
+// $Rev$
+// $Id$
+
+/**
+ * <p> Sparks for ad hoc parallelism. </p>
+ *
+ * <p> A spark is an unevaluated value that is worth evaluating in parallel,
+ * as announced with <tt>par</tt> from <tt>frege.lib.ForkJoin</tt>.
+ * It used to be that every such value was forked as a
+ * {@link java.util.concurrent.ForkJoinTask} of its own. With fine grained
+ * parallelism in recursive code, this floods the pool with tiny tasks,
+ * most of which are evaluated by the very thread that forked them
+ * before any other worker gets to them.</p>
+ *
+ * <p> Now, each worker thread has a bounded deque of sparks. 
+ * A new spark is put at the end of the deque of the current worker. 
+ * Only if the worker has not too many queued tasks already
+ * (see {@link java.util.concurrent.ForkJoinTask#getSurplusQueuedTaskCount()}),
+ * a task is forked that runs the sparks of this deque, beginning with the oldest one.
+ * Sparks that are not converted this way cost no more than a slot in the deque.
+ * </p>
+ *
+ * <p> A spark <em>fizzles</em> when its value has been evaluated, or is under evaluation,
+ * before the spark is run, for instance, by the thread that created it.
+ * Fizzled sparks are dropped. When the deque is full, new sparks overflow and are dropped too.
+ * </p>
+ *
+ * <p> The following system properties control the spark pool: </p>
+ * <dl>
+ * <dt><tt>frege.sparks</tt></dt>
+ * <dd> the maximum number of sparks in the deque of a worker, default 1024</dd>
+ * <dt><tt>frege.surplus</tt></dt>
+ * <dd> a task that runs sparks is forked only if the current worker
+ *      has at most so many surplus tasks, default 3</dd>
+ * <dt><tt>frege.sparkstats</tt></dt>
+ * <dd> if <tt>true</tt>, the numbers of created, converted, fizzled and overflowed sparks
+ *      are printed on standard error when the program ends, see {@link frege.RT#fjMain}</dd>
+ * </dl>
+ */
+public final class Spark {
+    private Spark() {}
+
+    /** <p> Maximum number of sparks in the deque of a worker. </p> */
+    public final static int maxSparks  = intProperty("frege.sparks", 1024);
+    /** <p> Maximum surplus of queued tasks that allows forking another spark runner. </p> */
+    public final static int maxSurplus = intProperty("frege.surplus", 3);
+    /** <p> Tell if statistics are wanted. </p> */
+    public final static boolean stats  = Boolean.getBoolean("frege.sparkstats");
+
+    private static int intProperty(final String name, final int dflt) {
+        try {
+            final int n = Integer.parseInt(System.getProperty(name, Integer.toString(dflt)));
+            return n >= 0 ? n : dflt;
+        } catch (NumberFormatException ex) {
+            return dflt;
+        }
+    }
+
+    /**
+     * <p> The sparks of one thread. </p>
+     *
+     * <p> The owner adds sparks at the end, runners take them from the front.
+     * The counters are updated only by the owner thread. </p>
+     */
+    private final static class Pool {
+        final java.util.concurrent.ConcurrentLinkedDeque<Unknown<?>> sparks =
+                new java.util.concurrent.ConcurrentLinkedDeque<Unknown<?>>();
+        /** the approximate size of the deque, which would be expensive to compute */
+        final java.util.concurrent.atomic.AtomicInteger size =
+                new java.util.concurrent.atomic.AtomicInteger();
+        long created, converted, fizzled, overflowed;
+
+        /** take the oldest spark, if any */
+        Unknown<?> poll() {
+            final Unknown<?> u = sparks.pollFirst();
+            if (u != null) size.decrementAndGet();
+            return u;
+        }
+    }
+
+    /** <p> All pools, for statistics. </p> */
+    private final static java.util.concurrent.ConcurrentLinkedQueue<Pool> pools =
+            new java.util.concurrent.ConcurrentLinkedQueue<Pool>();
+
+    private final static ThreadLocal<Pool> current = new ThreadLocal<Pool>() {
+        @Override protected Pool initialValue() {
+            final Pool p = new Pool();
+            if (stats) pools.add(p);
+            return p;
+        }
+    };
+
+    /** <p> A spark is not worth running when it is evaluated or under evaluation. </p> */
+    private static boolean fizzled(final Unknown<?> u) {
+        return !u._u() || u.evaluating();
+    }
+
+    /**
+     * <p> Task that runs the sparks of some {@link Pool}. </p>
+     *
+     * <p> Runs until there are no more sparks in that pool. </p>
+     */
+    private final static class Runner extends java.util.concurrent.RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Pool pool;
+        Runner(final Pool pool) { this.pool = pool; }
+
+        protected void compute() {
+            final Pool mine = current.get();
+            for (Unknown<?> u = pool.poll(); u != null; u = pool.poll()) {
+                if (fizzled(u)) { mine.fizzled++; continue; }
+                mine.converted++;
+                try {
+                    u._e();
+                } catch (RuntimeException ex) {
+                    // whoever needs the value will evaluate it again and get the exception
+                } catch (StackOverflowError ex) {
+                    // likewise
+                }
+            }
+        }
+    }
+
+    /**
+     * <p> Create a spark for a value. </p>
+     *
+     * <p> Nothing happens unless the value is an unevaluated {@link Unknown}
+     * and the current thread is a worker of a {@link java.util.concurrent.ForkJoinPool}
+     * or continues an evaluation of such a worker on a new stack (see {@link Trampoline}). 
+     * In the latter case, the sparks are run in the pool of that worker. </p>
+     */
+    public static void spark(final Lazy<?> v) {
+        if (!(v instanceof Unknown)) return;
+        final java.util.concurrent.ForkJoinPool outer = 
+                java.util.concurrent.ForkJoinTask.inForkJoinPool() ? null : Trampoline.pool();
+        if (outer == null && !java.util.concurrent.ForkJoinTask.inForkJoinPool()) return;
+        final Unknown<?> u = (Unknown<?>) v;
+        final Pool p = current.get();
+        p.created++;
+        if (fizzled(u)) { p.fizzled++; return; }
+        if (p.size.get() >= maxSparks) {
+            // make room by dropping fizzled sparks
+            // a runner may take the same spark concurrently, only the one that unlinks it counts it
+            for (final Unknown<?> s : p.sparks) {
+                if (fizzled(s) && p.sparks.removeFirstOccurrence(s)) { p.size.decrementAndGet(); p.fizzled++; }
+            }
+            if (p.size.get() >= maxSparks) { p.overflowed++; return; }
+        }
+        p.sparks.addLast(u);
+        p.size.incrementAndGet();
+        if (outer != null) {
+            if (outer.getQueuedSubmissionCount() <= maxSurplus) outer.execute(new Runner(p));
+        }
+        else if (java.util.concurrent.ForkJoinTask.getSurplusQueuedTaskCount() <= maxSurplus)
+            new Runner(p).fork();
+    }
+
+    /**
+     * <p> Statistics about sparks, summed over all threads. </p>
+     *
+     * <p> Only available if the system property <tt>frege.sparkstats</tt> is <tt>true</tt>.</p>
+     */
+    public static String statistics() {
+        long created = 0, converted = 0, fizzled = 0, overflowed = 0;
+        for (Pool p : pools) {
+            created    += p.created;
+            converted  += p.converted;
+            fizzled    += p.fizzled;
+            overflowed += p.overflowed;
+        }
+        return "sparks: " + created + " created, " + converted + " converted, "
+                + fizzled + " fizzled, " + overflowed + " overflowed";
+    }
+}
@@ -0,0 +1,104 @@
+/* «•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»
+
+    Copyright © 2011, Ingo Wechsung
+    All rights reserved.
+    
+    Redistribution and use in source and binary forms, with or
+    without modification, are permitted provided that the following
+    conditions are met:
+    
+        Redistributions of source code must retain the above copyright
+        notice, this list of conditions and the following disclaimer.
+    
+        Redistributions in binary form must reproduce the above
+        copyright notice, this list of conditions and the following
+        disclaimer in the documentation and/or other materials provided
+        with the distribution. Neither the name of the copyright holder
+        nor the names of its contributors may be used to endorse or
+        promote products derived from this software without specific
+        prior written permission. 
+        
+    THIS SOFTWARE IS PROVIDED BY THE
+    COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR
+    IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+    WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+    PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER
+    OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+    SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+    LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+    USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+    AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+    LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING
+    IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+    THE POSSIBILITY OF SUCH DAMAGE.
+
+    «•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•» */
+    
+package frege.rt;
+
+// $Author$
+// $Date$
+// $Rev$
+// $Id$
+
+/**
+ * <p> Transactional variable. </p>
+ *
+ * <p> This is used for the TVar type in the Prelude. 
+ * Except for {@link #get}, a TVar is read and written only in transactions,
+ * see {@link STM}. </p>
+ *
+ * <p> The <tt>stamp</tt> holds the version of the current value, 
+ * that is, the value of the global version clock when it was committed, shifted left 
+ * by one bit. The lowest bit is set while a transaction commits a new value. </p>
+ */
+public final class TVar<T extends Lazy<T>> {
+    /** the current value */
+    volatile T value;
+    /** version and lock bit */
+    volatile long stamp;
+    /** transactions that wait in <tt>retry</tt> for a change of this variable */
+    volatile STM.Waiter waiters;
+
+    @SuppressWarnings("rawtypes")
+    private final static java.util.concurrent.atomic.AtomicLongFieldUpdater<TVar> STAMP =
+        java.util.concurrent.atomic.AtomicLongFieldUpdater.newUpdater(TVar.class, "stamp");
+    @SuppressWarnings("rawtypes")
+    private final static java.util.concurrent.atomic.AtomicReferenceFieldUpdater<TVar, STM.Waiter> WAITERS =
+        java.util.concurrent.atomic.AtomicReferenceFieldUpdater.newUpdater(TVar.class, STM.Waiter.class, "waiters");
+
+    /** Construct a variable. Because this is a native function, the type is correct. */
+    public TVar(final T a) { value = a; }
+
+    /** <p> Read the current value outside of a transaction. </p> */
+    public T get() { return value; }
+
+    /** <p> Try to set the lock bit, if it is not yet set. </p> */
+    final boolean lock(final long s) {
+        return (s & 1L) == 0 && STAMP.compareAndSet(this, s, s | 1L);
+    }
+
+    /** <p> Set a new value and version, and clear the lock bit. </p> */
+    @SuppressWarnings("unchecked")
+    final void publish(final Object x, final long s) {
+        value = (T) x;
+        stamp = s;
+    }
+
+    /** <p> Push a waiter, dropping those in front that are not waiting anymore. </p> */
+    final void addWaiter(final STM.Sleeper sleeper) {
+        for (;;) {
+            final STM.Waiter h = waiters;
+            STM.Waiter next = h;
+            while (next != null && next.sleeper.woken) next = next.next;
+            if (WAITERS.compareAndSet(this, h, new STM.Waiter(sleeper, next))) return;
+        }
+    }
+
+    /** <p> Wake all transactions that wait for a change. </p> */
+    final void wakeWaiters() {
+        if (waiters == null) return;
+        STM.Waiter w = WAITERS.getAndSet(this, null);
+        for (; w != null; w = w.next) w.sleeper.wake();
+    }
+}
@@ -0,0 +1,352 @@
+/* «•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»
+
+    Copyright © 2011, Ingo Wechsung
+    All rights reserved.
+    
+    Redistribution and use in source and binary forms, with or
+    without modification, are permitted provided that the following
+    conditions are met:
+    
+        Redistributions of source code must retain the above copyright
+        notice, this list of conditions and the following disclaimer.
+    
+        Redistributions in binary form must reproduce the above
+        copyright notice, this list of conditions and the following
+        disclaimer in the documentation and/or other materials provided
+        with the distribution. Neither the name of the copyright holder
+        nor the names of its contributors may be used to endorse or
+        promote products derived from this software without specific
+        prior written permission. 
+        
+    THIS SOFTWARE IS PROVIDED BY THE
+    COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR
+    IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+    WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+    PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER
+    OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+    SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+    LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+    USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+    AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+    LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING
+    IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+    THE POSSIBILITY OF SUCH DAMAGE.
+
+    «•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•» */
+    
+package frege.rt;
+
+// $Author$
+// $Date$
+// $Rev$
+// $Id$
+
+/**
+ * <p> Immutable text, represented as rope. </p>
+ *
+ * <p> Used to realize type frege.data.Text.TextJ. </p>
+ *
+ * <p> A Text is either a {@link Leaf} that holds a {@link String}, or a 
+ * {@link Node} that concatenates two texts. The nodes are kept balanced like 
+ * an AVL tree, hence concatenation, indexing and slicing are O(log n). 
+ * Small leaves are merged, so that appending single characters or short
+ * strings repeatedly does not result in a tree with a node per character. </p>
+ */
+public abstract class Text implements CharSequence, Comparable<Text> {
+    /** <p> Leaves up to this length are merged. </p> */
+    public final static int chunk = 512;
+
+    /** <p> The empty text. </p> */
+    public final static Text empty = new Leaf("");
+
+    private int hash = 0;
+
+    /** <p> The depth of the tree, 0 for a leaf. </p> */
+    abstract int depth();
+    /** <p> Append the characters to a {@link StringBuilder}. </p> */
+    public abstract void appendTo(StringBuilder sb);
+    /** <p> The text from index <tt>from</tt> to <tt>to</tt> (exclusive), with from &lt; to. </p> */
+    abstract Text part(int from, int to);
+    /** <p> The first index at or after <tt>from</tt> with the character c, or -1. </p> */
+    abstract int find(char c, int from);
+    /** <p> The first index at or after <tt>from</tt> where whitespace is as given, or -1. </p> */
+    abstract int findSpace(boolean space, int from);
+    /** <p> Tell if the characters starting at <tt>at</tt> are those of s from <tt>soff</tt> to <tt>soff+n</tt>. </p> */
+    abstract boolean region(int at, String s, int soff, int n);
+
+    final static class Leaf extends Text {
+        final String s;
+        Leaf(final String s) { this.s = s; }
+        int depth()                         { return 0; }
+        public int length()                 { return s.length(); }
+        public char charAt(final int i)     { return s.charAt(i); }
+        public String toString()            { return s; }
+        public void appendTo(final StringBuilder sb) { sb.append(s); }
+        Text part(final int from, final int to) {
+            return from == 0 && to == s.length() ? this : new Leaf(s.substring(from, to));
+        }
+        int find(final char c, final int from) { return s.indexOf(c, from); }
+        int findSpace(final boolean space, final int from) {
+            for (int i = from; i < s.length(); i++) 
+                if (Character.isWhitespace(s.charAt(i)) == space) return i;
+            return -1;
+        }
+        boolean region(final int at, final String p, final int poff, final int n) {
+            return s.regionMatches(at, p, poff, n);
+        }
+    }
+
+    final static class Node extends Text {
+        final Text left, right;
+        final int len, dep;
+        Node(final Text left, final Text right) {
+            this.left = left; this.right = right;
+            len = left.length() + right.length();
+            dep = 1 + Math.max(left.depth(), right.depth());
+        }
+        int depth()                         { return dep; }
+        public int length()                 { return len; }
+        public char charAt(int i) {
+            if (i < 0 || i >= len) throw new IndexOutOfBoundsException("Text.charAt " + i + " of " + len);
+            Text t = this;
+            while (t instanceof Node) {
+                final Node n = (Node) t;
+                final int ll = n.left.length();
+                if (i < ll) t = n.left;
+                else { t = n.right; i -= ll; }
+            }
+            return t.charAt(i);
+        }
+        public String toString() {
+            final StringBuilder sb = new StringBuilder(len);
+            appendTo(sb);
+            return sb.toString();
+        }
+        public void appendTo(final StringBuilder sb) {
+            Text t = this;
+            while (t instanceof Node) {         // loop on the right spine, recurse on the left
+                ((Node) t).left.appendTo(sb);
+                t = ((Node) t).right;
+            }
+            t.appendTo(sb);
+        }
+        Text part(final int from, final int to) {
+            final int ll = left.length();
+            if (from == 0 && to == len) return this;
+            if (to <= ll)   return left.part(from, to);
+            if (from >= ll) return right.part(from - ll, to - ll);
+            return join(left.part(from, ll), right.part(0, to - ll));
+        }
+        int find(final char c, final int from) {
+            final int ll = left.length();
+            if (from < ll) {
+                final int i = left.find(c, from);
+                if (i >= 0) return i;
+            }
+            final int i = right.find(c, Math.max(0, from - ll));
+            return i < 0 ? i : i + ll;
+        }
+        int findSpace(final boolean space, final int from) {
+            final int ll = left.length();
+            if (from < ll) {
+                final int i = left.findSpace(space, from);
+                if (i >= 0) return i;
+            }
+            final int i = right.findSpace(space, Math.max(0, from - ll));
+            return i < 0 ? i : i + ll;
+        }
+        boolean region(final int at, final String p, final int poff, final int n) {
+            final int ll = left.length();
+            if (at + n <= ll) return left.region(at, p, poff, n);
+            if (at >= ll)     return right.region(at - ll, p, poff, n);
+            final int k = ll - at;
+            return left.region(at, p, poff, k) && right.region(0, p, poff + k, n - k);
+        }
+    }
+
+    /** <p> Make a text from a string, in O(1). </p> */
+    public static Text fromString(final String s) {
+        return s.length() == 0 ? empty : new Leaf(s);
+    }
+
+    /** <p> Make a text from the current contents of a {@link StringBuilder} or any {@link CharSequence}. </p> */
+    public static Text fromChars(final CharSequence cs) {
+        return cs instanceof Text ? (Text) cs : fromString(cs.toString());
+    }
+
+    /**
+     * <p> Append the characters as a quoted string literal, the same as
+     * {@link frege.RT#quoteStr} of {@link Text#toString} would. </p>
+     *
+     * <p> The characters are appended with {@link Text#appendTo} and only looked
+     * at again if some of them need escapes. </p>
+     */
+    public void appendQuoted(final StringBuilder sb) {
+        sb.append('"');
+        final int from = sb.length();
+        appendTo(sb);
+        for (int i = from; i < sb.length(); i++) {
+            final char c = sb.charAt(i);
+            if (c < ' ' || c == '\177' || c == '\\' || c == '"') {
+                final String raw = sb.substring(i);
+                sb.setLength(i);
+                for (int j = 0; j < raw.length(); j++) {
+                    final char d = raw.charAt(j);
+                    if (d < ' ' || d == '\177') sb.append('\\').append(Integer.toOctalString(d));
+                    else if (d == '\\' || d == '"') sb.append('\\').append(d);
+                    else sb.append(d);
+                }
+                break;
+            }
+        }
+        sb.append('"');
+    }
+
+    /** <p> Concatenate two texts, in O(log n). </p> */
+    public static Text concat(final Text a, final Text b) {
+        if (a.length() == 0) return b;
+        if (b.length() == 0) return a;
+        return join(a, b);
+    }
+
+    /** <p> This text followed by that one. </p> */
+    public Text append(final Text that) { return concat(this, that); }
+
+    private static Text join(final Text a, final Text b) {
+        final int da = a.depth(), db = b.depth();
+        if (da > db + 1) {
+            final Node n = (Node) a;
+            return balance(n.left, join(n.right, b));
+        }
+        if (db > da + 1) {
+            final Node n = (Node) b;
+            return balance(join(a, n.left), n.right);
+        }
+        return node(a, b);
+    }
+
+    /** <p> Make a node, or a leaf if both are small leaves. </p> */
+    private static Text node(final Text a, final Text b) {
+        if (a instanceof Leaf && b instanceof Leaf && a.length() + b.length() <= chunk)
+            return new Leaf(((Leaf) a).s.concat(((Leaf) b).s));
+        return new Node(a, b);
+    }
+
+    /** <p> Make a node from two balanced trees whose depths differ by at most 2. </p> */
+    private static Text balance(final Text l, final Text r) {
+        final int dl = l.depth(), dr = r.depth();
+        if (dl > dr + 1) {
+            final Node n = (Node) l;
+            if (n.left.depth() >= n.right.depth()) return node(n.left, node(n.right, r));
+            final Node m = (Node) n.right;
+            return node(node(n.left, m.left), node(m.right, r));
+        }
+        if (dr > dl + 1) {
+            final Node n = (Node) r;
+            if (n.right.depth() >= n.left.depth()) return node(node(l, n.left), n.right);
+            final Node m = (Node) n.left;
+            return node(node(l, m.left), node(m.right, n.right));
+        }
+        return node(l, r);
+    }
+
+    /** <p> The text from index <tt>from</tt> to <tt>to</tt> (exclusive), in O(log n). </p> */
+    public Text slice(int from, int to) {
+        if (from < 0) from = 0;
+        if (to > length()) to = length();
+        if (from >= to) return empty;
+        return part(from, to);
+    }
+    public CharSequence subSequence(final int from, final int to) {
+        if (from < 0 || to > length() || from > to)
+            throw new IndexOutOfBoundsException("Text.subSequence " + from + " " + to + " of " + length());
+        return slice(from, to);
+    }
+    /** <p> The first n characters. </p> */
+    public Text take(final int n) { return slice(0, n); }
+    /** <p> All but the first n characters. </p> */
+    public Text drop(final int n) { return slice(n, length()); }
+
+    /** <p> The first index at or after <tt>from</tt> where the character occurs, or -1. </p> */
+    public int indexOf(final char c, final int from) { 
+        return from >= length() ? -1 : find(c, Math.max(from, 0)); 
+    }
+
+    /** <p> The first index at or after <tt>from</tt> where the string occurs, or -1. </p> */
+    public int indexOf(final String p, int from) {
+        final int n = p.length();
+        if (from < 0) from = 0;
+        if (n == 0) return from <= length() ? from : -1;
+        final char c = p.charAt(0);
+        for (int i = indexOf(c, from); i >= 0 && i + n <= length(); i = indexOf(c, i+1))
+            if (region(i, p, 0, n)) return i;
+        return -1;
+    }
+
+    /**
+     * <p> Skip whitespace if <tt>space</tt> is true, otherwise non whitespace. </p>
+     * <p> Gives the first index at or after <tt>from</tt> where this ends, or the length. </p>
+     */
+    public int skip(final boolean space, final int from) {
+        if (from >= length()) return length();
+        final int i = findSpace(!space, Math.max(from, 0));
+        return i < 0 ? length() : i;
+    }
+
+    /** <p> The character at the index, boxed. </p> */
+    public static Box.Char itemAt(final Text t, final int i) {
+        return Box.Char.mk(t.charAt(i));
+    }
+
+    /** <p> Walks through the characters of the leaves. </p> */
+    private final static class Chars {
+        private final java.util.ArrayDeque<Text> stack = new java.util.ArrayDeque<Text>();
+        private String s = "";
+        private int i = 0;
+        Chars(final Text t) { stack.push(t); }
+        /** the next character or -1 */
+        int next() {
+            while (i >= s.length()) {
+                if (stack.isEmpty()) return -1;
+                Text t = stack.pop();
+                while (t instanceof Node) {
+                    stack.push(((Node) t).right);
+                    t = ((Node) t).left;
+                }
+                s = ((Leaf) t).s;
+                i = 0;
+            }
+            return s.charAt(i++);
+        }
+    }
+
+    /** <p> Lexicographic order like {@link String#compareTo}. </p> */
+    public int compareTo(final Text that) {
+        if (this == that) return 0;
+        if (this instanceof Leaf && that instanceof Leaf)
+            return ((Leaf) this).s.compareTo(((Leaf) that).s);
+        final Chars a = new Chars(this), b = new Chars(that);
+        for (;;) {
+            final int x = a.next(), y = b.next();
+            if (x < 0 || y < 0 || x != y) return x < 0 || y < 0 ? length() - that.length() : x - y;
+        }
+    }
+
+    @Override public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Text)) return false;
+        final Text that = (Text) o;
+        return length() == that.length() && compareTo(that) == 0;
+    }
+
+    /** <p> The same as the hash code of the string with the same characters. </p> */
+    @Override public int hashCode() {
+        int h = hash;
+        if (h == 0 && length() > 0) {
+            final Chars cs = new Chars(this);
+            for (int c = cs.next(); c >= 0; c = cs.next()) h = 31 * h + c;
+            hash = h;
+        }
+        return h;
+    }
+}
@@ -0,0 +1,90 @@
+/* «•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»
+
+    Copyright © 2011, Ingo Wechsung
+    All rights reserved.
+    
+    Redistribution and use in source and binary forms, with or
+    without modification, are permitted provided that the following
+    conditions are met:
+    
+        Redistributions of source code must retain the above copyright
+        notice, this list of conditions and the following disclaimer.
+    
+        Redistributions in binary form must reproduce the above
+        copyright notice, this list of conditions and the following
+        disclaimer in the documentation and/or other materials provided
+        with the distribution. Neither the name of the copyright holder
+        nor the names of its contributors may be used to endorse or
+        promote products derived from this software without specific
+        prior written permission. 
+        
+    THIS SOFTWARE IS PROVIDED BY THE
+    COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR
+    IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+    WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+    PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER
+    OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+    SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+    LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+    USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+    AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+    LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING
+    IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+    THE POSSIBILITY OF SUCH DAMAGE.
+
+    «•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•» */
+
+package frege.rt;
+
+// $Author$
+// $Date$
+// $Rev$
+// $Id$
+
+/**
+ * <p> Lazy values for local definitions in compiled frege code. </p>
+ *
+ * <p> The compiler used to generate local lazy values as anonymous subclasses
+ * of {@link Unknown}: </p>
+ * <pre>
+ * final Lazy&lt;FV&gt; x = new Unknown&lt;FV&gt;() {
+ *      public final Lazy&lt;FV&gt; _v() { ... code that uses a, b and c ... }
+ * };
+ * </pre>
+ * <p> Java keeps the local variables a, b and c that are used in the code
+ * in final fields of the anonymous class.
+ * Hence, they live as long as the lazy value itself, even if it was
+ * evaluated long ago and they are not needed anymore. </p>
+ *
+ * <p> Therefore, the code goes in a separate {@link Thunk.Code} object which is
+ * dropped once the value is known: </p>
+ * <pre>
+ * final Lazy&lt;FV&gt; x = new Thunk(new Thunk.Code() {
+ *      public final Lazy&lt;FV&gt; _v() { ... code that uses a, b and c ... }
+ * });
+ * </pre>
+ *
+ * <p> Top level values don't need this, as they can only refer to other
+ * top level values, which are static anyway.</p>
+ */
+public final class Thunk extends Unknown<FV> {
+    /**
+     * <p> The code that computes a lazy value. </p>
+     */
+    public static abstract class Code {
+        /** <p> Do the real work, see {@link Unknown#_v}. </p> */
+        public abstract Lazy<FV> _v();
+    }
+
+    /** <p> The code, or <tt>null</tt> once the value is evaluated. </p> */
+    private Code code;
+
+    /** <p> Create a lazy value that will be computed by <tt>code</tt>. </p> */
+    public Thunk(final Code code) { this.code = code; }
+
+    /** <p> Run the code. </p> */
+    final public Lazy<FV> _v() { return code._v(); }
+
+    /** <p> Drop the code and everything it refers to. </p> */
+    final protected void forget() { code = null; }
+}
@@ -0,0 +1,300 @@
+/* «•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»
+
+    Copyright © 2011, Ingo Wechsung
+    All rights reserved.
+    
+    Redistribution and use in source and binary forms, with or
+    without modification, are permitted provided that the following
+    conditions are met:
+    
+        Redistributions of source code must retain the above copyright
+        notice, this list of conditions and the following disclaimer.
+    
+        Redistributions in binary form must reproduce the above
+        copyright notice, this list of conditions and the following
+        disclaimer in the documentation and/or other materials provided
+        with the distribution. Neither the name of the copyright holder
+        nor the names of its contributors may be used to endorse or
+        promote products derived from this software without specific
+        prior written permission. 
+        
+    THIS SOFTWARE IS PROVIDED BY THE
+    COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR
+    IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+    WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+    PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER
+    OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+    SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+    LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+    USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+    AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+    LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING
+    IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+    THE POSSIBILITY OF SUCH DAMAGE.
+
+    «•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•» */
+
+package frege.rt;
+
+// $Author$
+// $Date$
+// $Rev$
+// $Id$
+
+/**
+ * <p> Evaluation of deeply nested lazy values without deep java stacks. </p>
+ *
+ * <p> While tail calls are evaluated in a loop (see {@link Unknown}), evaluation
+ * of a value that needs the evaluated value of another one uses java stack.
+ * For example, when the list
+ * <pre>
+ * foldr (+) 0 [1..1000000]
+ * </pre>
+ * <p> is evaluated, there will be a million nested evaluations, and the
+ * program either runs with a huge stack (<tt>-Xss</tt>) or it dies
+ * with a {@link StackOverflowError}. Threads that cannot be given
+ * a huge stack, like the workers of a {@link java.util.concurrent.ForkJoinPool}
+ * or virtual threads, could not evaluate such values at all.</p>
+ *
+ * <p> If the system property <tt>frege.stackdepth</tt> is set to a
+ * positive number <em>n</em>, the nesting depth of evaluations is counted 
+ * for each thread. When it would exceed <em>n</em>, the evaluation goes on in another thread 
+ * that starts with an empty stack, and the current thread waits for the result. 
+ * Thus, the java stack is split in segments of <em>n</em> nested evaluations each, 
+ * and a deep evaluation needs only as much memory as it actually uses, 
+ * not more than the biggest stack. </p>
+ *
+ * <p> Segments run in virtual threads, where the java runtime supports them, 
+ * or else in a cache of daemon threads that are reused. 
+ * A worker of a {@link java.util.concurrent.ForkJoinPool} waits for its segment through 
+ * {@link java.util.concurrent.ForkJoinPool#managedBlock}, so that the pool can compensate.
+ * The segments remember the pool of the evaluation they continue (see {@link #pool}),
+ * so that sparks created in a segment still go to that pool. 
+ * A segment runs in the {@link STM} transaction of the thread that waits for it, 
+ * and is interrupted when that thread is. Other thread local state of the waiting 
+ * thread is not visible in the segment. </p>
+ *
+ * <p> A good value for <em>n</em> is a few hundred, which leaves ample room in the 
+ * default stack of 1MB. Evaluations that are nested less deeply than this never 
+ * leave the thread they started in, but all evaluations pay for the counting,
+ * which makes forcing a value that is not yet evaluated about 25% slower.
+ * Therefore, nothing is counted unless the property is set, and a deep evaluation 
+ * needs a big stack (<tt>-Xss</tt>).</p>
+ *
+ * <p> Note that only nesting through lazy values is taken care of. Strict
+ * recursion that the compiler turned into direct recursive java method calls
+ * still needs java stack.</p>
+ */
+public final class Trampoline {
+    private Trampoline() {}
+
+    /**
+     * <p> Maximum nesting depth of evaluations in one stack segment,
+     * or 0 if there is no limit. </p>
+     */
+    public final static int maxDepth = depthProperty();
+
+    /** <p> Tell if evaluation depth is counted at all. </p> */
+    public final static boolean enabled = maxDepth > 0;
+
+    private static int depthProperty() {
+        try {
+            final int n = Integer.parseInt(System.getProperty("frege.stackdepth", "0"));
+            return n > 0 ? n : 0;
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+
+    /**
+     * <p> A stack segment. </p>
+     *
+     * <p> This knows the thread it runs in, the segment it continues and the
+     * current nesting depth of evaluations.</p>
+     */
+    private final static class Segment {
+        final Thread  thread;
+        final Segment parent;
+        /** the pool of the thread that started the evaluation, if any */
+        final java.util.concurrent.ForkJoinPool pool;
+        int depth = 0;
+        Segment(final Thread thread, final Segment parent) {
+            this.thread = thread;
+            this.parent = parent;
+            this.pool   = parent != null ? parent.pool
+                        : thread instanceof java.util.concurrent.ForkJoinWorkerThread
+                            ? ((java.util.concurrent.ForkJoinWorkerThread) thread).getPool()
+                            : null;
+        }
+    }
+
+    private final static ThreadLocal<Segment> current = new ThreadLocal<Segment>() {
+        @Override protected Segment initialValue() {
+            return new Segment(Thread.currentThread(), null);
+        }
+    };
+
+    /**
+     * <p> Evaluate an unknown value, counting the nesting depth. </p>
+     *
+     * <p> If the maximum depth is reached, evaluation continues in a new segment.</p>
+     */
+    static <V> V force(final Unknown<V> u) {
+        final Segment seg = current.get();
+        if (seg.depth >= maxDepth) return continued(u, seg);
+        seg.depth++;
+        try {
+            return u.force();
+        } finally {
+            seg.depth--;
+        }
+    }
+
+    /**
+     * <p> The {@link java.util.concurrent.ForkJoinPool} of the evaluation that 
+     * the current thread continues, or <tt>null</tt>. </p>
+     */
+    public static java.util.concurrent.ForkJoinPool pool() {
+        return enabled ? current.get().pool : null;
+    }
+
+    /**
+     * <p> Tell if the current thread continues an evaluation that was started in <tt>owner</tt>. </p>
+     *
+     * <p> This is needed to recognize a value that is being evaluated in an earlier segment
+     * of the same evaluation, so that the value is evaluated again (and eventually
+     * runs out of memory) instead of waiting for itself forever.</p>
+     */
+    static boolean continues(final Object owner) {
+        for (Segment s = current.get().parent; s != null; s = s.parent)
+            if (s.thread == owner) return true;
+        return false;
+    }
+
+    /**
+     * <p> The evaluation of a value in a new segment. </p>
+     *
+     * <p> The evaluation runs in the {@link STM} transaction of the thread 
+     * that waits for it, and the segment thread is interrupted when that thread is,
+     * for instance by {@link Concurrent#killThread}. </p>
+     *
+     * <p> The thread that runs it may be reused afterwards, hence its segment
+     * and transaction are restored at the end. </p>
+     */
+    private final static class Continuation 
+            implements Runnable, java.util.concurrent.ForkJoinPool.ManagedBlocker {
+        private final Unknown<?> u;
+        private final Segment parent;
+        private final Object tx = STM.transaction();
+        private volatile boolean done = false;
+        private volatile boolean cancelled = false;
+        private volatile Thread runner = null;
+        private Throwable failed = null;
+        Continuation(final Unknown<?> u, final Segment parent) { this.u = u; this.parent = parent; }
+
+        public void run() {
+            final Segment saved = current.get();
+            final Object savedTx = STM.transaction();
+            current.set(new Segment(Thread.currentThread(), parent));
+            STM.transaction(tx);
+            runner = Thread.currentThread();
+            if (cancelled) Thread.currentThread().interrupt();
+            try {
+                u._e();
+            } catch (Throwable t) {
+                failed = t;
+            } finally {
+                runner = null;
+                current.set(saved);
+                STM.transaction(savedTx);
+                done = true;
+                synchronized (this) { this.notifyAll(); }
+            }
+        }
+
+        /** <p> Interrupt the thread that runs the evaluation, now or when it starts. </p> */
+        void cancel() {
+            cancelled = true;
+            final Thread t = runner;
+            if (t != null) t.interrupt();
+        }
+
+        public boolean isReleasable() { return done; }
+
+        public boolean block() throws InterruptedException {
+            synchronized (this) {
+                while (!done) this.wait();
+            }
+            return true;
+        }
+    }
+
+    /**
+     * <p> Evaluate an unknown value in a new segment and wait for the result. </p>
+     */
+    private static <V> V continued(final Unknown<V> u, final Segment seg) {
+        final Continuation c = new Continuation(u, seg);
+        final Thread me = Thread.currentThread();
+        final boolean worker = me instanceof java.util.concurrent.ForkJoinWorkerThread;
+        segments.execute(c);
+        boolean interrupted = false;
+        while (!c.isReleasable()) {
+            try { 
+                if (worker) java.util.concurrent.ForkJoinPool.managedBlock(c);
+                else c.block();
+            }
+            catch (InterruptedException ex) { 
+                interrupted = true;
+                c.cancel();
+            }
+        }
+        if (interrupted) me.interrupt();
+        final Throwable ex = c.failed;
+        if (ex instanceof RuntimeException) throw (RuntimeException) ex;
+        if (ex instanceof Error) throw (Error) ex;
+        if (ex != null) throw new Error("evaluation failed", ex);
+        return u._e();
+    }
+
+    /** <p> <tt>Thread.ofVirtual</tt>, if this java has virtual threads. </p> */
+    private final static java.lang.reflect.Method ofVirtual;
+    /** <p> <tt>Thread.Builder.unstarted</tt>, if this java has virtual threads. </p> */
+    private final static java.lang.reflect.Method unstarted;
+    static {
+        java.lang.reflect.Method o = null, u = null;
+        try {
+            o = Thread.class.getMethod("ofVirtual");
+            u = Class.forName("java.lang.Thread$Builder").getMethod("unstarted", Runnable.class);
+        } catch (Exception ex) {
+            o = null;
+            u = null;
+        }
+        ofVirtual = o;
+        unstarted = u;
+    }
+
+    /**
+     * <p> Runs the segments. </p>
+     *
+     * <p> Each segment gets a virtual thread, if possible, otherwise a daemon thread 
+     * from a cache, where threads that are idle for a minute go away. </p>
+     */
+    private final static java.util.concurrent.Executor segments = ofVirtual != null 
+        ? new java.util.concurrent.Executor() {
+                public void execute(final Runnable run) {
+                    try {
+                        ((Thread) unstarted.invoke(ofVirtual.invoke(null), run)).start();
+                    } catch (Exception ex) {
+                        throw new Error("can't start virtual thread", ex);
+                    }
+                }
+            }
+        : java.util.concurrent.Executors.newCachedThreadPool(
+            new java.util.concurrent.ThreadFactory() {
+                public Thread newThread(final Runnable run) {
+                    final Thread t = new Thread(run, "frege-stack-segment");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+}
@@ -52,7 +52,9 @@ package frege.rt;
  * and cannot be changed.
  * It calls {@link Unknown#_v} in a loop until the value is fully evaluated and then
  * caches it in a private instance variable. Hence, instances of
- * Unknown are not immutable and this in turn requires synchronization.</p>
+ * Unknown are not immutable and this in turn requires coordination between
+ * threads that evaluate the same value. This is done without locking in the
+ * common case, see {@link Unknown#_e}.</p>
 
  * <p> The caching of the evaluated value would not be strictly necessary, as
  * repeated evaluation must always yield the same result. Experience shows,
@@ -314,6 +316,29 @@ package frege.rt;
 public abstract class Unknown<V> implements Lazy<V>, java.util.concurrent.Callable<V> {
     protected volatile V result = null;        // cache the evaluated value
 
+    /**
+     * <p> Evaluation state. </p>
+     *
+     * <p> This is <tt>null</tt> as long as nobody evaluates this value,
+     * and the evaluating {@link Thread} while evaluation is in progress.
+     * Once {@link Unknown#result} is set, it is <tt>null</tt> again.</p>
+     *
+     * <p> It is another {@link Unknown} if this value was passed while evaluating
+     * that one. Because evaluation of the other value did not need more than
+     * evaluating this one, both have the same value. Hence this is an indirection
+     * to the value that is or was under evaluation. </p>
+     */
+    private volatile Object ev = null;
+    /** <p> Number of threads that wait for another thread evaluating this value. </p> */
+    private volatile int waiters = 0;
+
+    @SuppressWarnings("rawtypes")
+    private static final java.util.concurrent.atomic.AtomicReferenceFieldUpdater<Unknown, Object> EV =
+        java.util.concurrent.atomic.AtomicReferenceFieldUpdater.newUpdater(Unknown.class, Object.class, "ev");
+    @SuppressWarnings("rawtypes")
+    private static final java.util.concurrent.atomic.AtomicIntegerFieldUpdater<Unknown> WAITERS =
+        java.util.concurrent.atomic.AtomicIntegerFieldUpdater.newUpdater(Unknown.class, "waiters");
+
     /***
      * <p>Evaluates a lazy value.</p>
      *
@@ -328,16 +353,29 @@ public abstract class Unknown<V> implements Lazy<V>, java.util.concurrent.Callab
      * even a function type. </p>
      *
      * <p>
-     * e_() must be synchronized because
-     * parallel threads could try to _e() us at the same time.
+     * Parallel threads could try to _e() us at the same time.
+     * Yet, _e() is not synchronized, as this would mean that
+     * every evaluation takes a monitor, even for values that never leave
+     * the thread that created them.
+     * Instead, a thread that wants to evaluate an unevaluated value claims it
+     * by atomically setting the evaluation state from <tt>null</tt> to itself.
+     * Other threads that find the value under evaluation wait until
+     * the result is set (or the evaluation failed with an exception,
+     * in which case they try to claim the value for themselves).
+     * Only in this case, a monitor is used for waiting and notification.
      * </p>
      *
+     * <p> If the thread that evaluates a value needs the value itself again
+     * during evaluation, it is simply evaluated once more. This
+     * is what happened with the old, synchronized, implementation also,
+     * because java monitors are reentrant.</p>
+     *
      * <p> Deadlocks could occur only when one manages to
      * construct two <em>different</em> Unknown objects a and b, where
      * during evaluation of a the evaluated b is needed <b>and</b>
      * during evaluation of b the the evaluated a is needed <b>and</b>
-     * one thread tries to evaluate a, thereby locking a first and
-     * another thread tries to evaluate b, thereby locking b first and
+     * one thread tries to evaluate a, thereby claiming a first and
+     * another thread tries to evaluate b, thereby claiming b first and
      * then the first thread waits for b while the second one waits for a.</p>
      *
      * <p> This could happen, for instance,
@@ -377,14 +415,203 @@ public abstract class Unknown<V> implements Lazy<V>, java.util.concurrent.Callab
      *      called from Unknown$1._e
      *      ...
      * </pre>
+     *
+     * <p> Evaluation of a value often needs evaluation of other values, and so
+     * each nested evaluation uses java stack. If the system property
+     * <tt>frege.stackdepth</tt> is set to a positive number, evaluation
+     * that is nested deeper than that continues on a new stack, see {@link Trampoline}.</p>
      */
-    public final synchronized  V  _e() {
+    public final V  _e() {
+        final V r = result;
+        if (r != null) return r;
+        return Trampoline.enabled ? Trampoline.force(this) : force();
+    }
+
+    /**
+     * <p> Claim this value for evaluation, or wait until it is evaluated. </p>
+     */
+    @SuppressWarnings("unchecked")
+    final V force() {
+        final Thread me = Thread.currentThread();
+        for (;;) {
+            final V r = result;
+            if (r != null) return r;
+            final Object o = ev;
+            if (o == null) {
+                if (EV.compareAndSet(this, null, me)) break;
+            }
+            else if (owned(o, me)) return reenter();
+            else if (o instanceof Unknown) return join((Unknown<V>) o, me);
+            else await(o);
+        }
+        // we are the only one to evaluate this now
+        try {
             if (result == null) {
-                Lazy<V> item = this;
-                while (item._u()) item = item._v();   // looks very innocent
-                result = item._e();                   // evaluated once and for all!
+                walk(this._v(), me);         // evaluated once and for all!
+                forget();
             }
             return result;
+        } finally {
+            ev = null;
+            if (waiters != 0) synchronized (this) { this.notifyAll(); }
+        }
+    }
+
+    /**
+     * <p> Evaluate the chain of lazy values that starts with <tt>item</tt>. </p>
+     *
+     * <p> This used to be just </p>
+     * <pre>
+     *      while (item._u()) item = item._v();   // looks very innocent
+     *      return item._e();
+     * </pre>
+     *
+     * <p> However, any unevaluated {@link Unknown} in the chain, if it is shared,
+     * would have to be evaluated once again from scratch later.
+     * Therefore, every {@link Unknown} that is passed is turned into
+     * an indirection to <tt>this</tt>, and will get our value
+     * when it is evaluated next time. If it is evaluated in another
+     * thread in the meantime, this thread will simply wait
+     * for <tt>this</tt> to complete.</p>
+     *
+     * <p> Conversely, when we reach an {@link Unknown} that is under evaluation in
+     * some other thread, or is an indirection itself, we just take its value.</p>
+     *
+     * <p> The result is stored in <tt>this</tt>. Only then do the indirections
+     * forget what they were computed from, for until then, the current thread
+     * may still need to evaluate one of them again (see {@link Unknown#reenter}). 
+     * If the evaluation fails, the indirections are turned back into unevaluated
+     * values, so that evaluating them later fails in the same way or succeeds. </p>
+     */
+    private void walk(Lazy<V> item, final Thread me) {
+        Unknown<?>[] claimed = null;
+        int n = 0;
+        final V r;
+        try {
+            for (;;) {
+                if (!item._u()) { r = item._e(); break; }
+                if (item instanceof Unknown) {
+                    final Unknown<V> u = (Unknown<V>) item;
+                    final Object o = u.ev;
+                    if (o == null) {
+                        if (EV.compareAndSet(u, null, this)) {
+                            if (u._u()) {
+                                if (claimed == null) claimed = new Unknown<?>[8];
+                                else if (n == claimed.length) claimed = java.util.Arrays.copyOf(claimed, 2*n);
+                                claimed[n++] = u;
+                                item = u._v();
+                            }
+                            else EV.compareAndSet(u, this, null);   // was just completed
+                        }
+                    }
+                    else if (owned(o, me)) item = u._v();
+                    else { r = u._e(); break; }
+                }
+                else item = item._v();
+            }
+        } catch (final Throwable t) {
+            for (int i = 0; i < n; i++) EV.compareAndSet(claimed[i], this, null);
+            throw t;
+        }
+        result = r;
+        for (int i = 0; i < n; i++) claimed[i].forget();
+    }
+
+    /**
+     * <p> Evaluation of an indirection. </p>
+     *
+     * <p> We have the same value as <tt>root</tt>, so we evaluate it
+     * and take over the result. This shortens any further evaluation of
+     * <tt>this</tt> to a simple field access.</p>
+     */
+    private V join(final Unknown<V> root, final Thread me) {
+        if (owned(root.ev, me)) return reenter();
+        final V r = root._e();
+        result = r;
+        forget();
+        EV.compareAndSet(this, root, null);
+        return r;
+    }
+
+    /**
+     * <p> Tell if evaluation state <tt>o</tt> means that the value is under evaluation
+     * in the current thread. </p>
+     *
+     * <p> This is the case when the current thread is the owner, or when the current
+     * thread continues an evaluation of the owner on a new stack,
+     * see {@link Trampoline}.</p>
+     */
+    private static boolean owned(final Object o, final Thread me) {
+        return o == me || Trampoline.enabled && o instanceof Thread && Trampoline.continues(o);
+    }
+
+    /**
+     * <p> Evaluation of a value that is already under evaluation in the current thread. </p>
+     *
+     * <p> The result is not cached, the outer evaluation will do that. </p>
+     */
+    private V reenter() {
+        Lazy<V> item = this._v();
+        while (item._u()) item = item._v();
+        return item._e();
+    }
+
+    /**
+     * <p> Wait while this value is being evaluated by <tt>owner</tt>. </p>
+     *
+     * <p> Returns when the result is known or when evaluation was aborted. </p>
+     *
+     * <p> A worker of a {@link java.util.concurrent.ForkJoinPool} does not just block,
+     * as this could starve the pool, or even deadlock it when all workers wait for
+     * values whose evaluation is queued behind them.
+     * It rather blocks through {@link java.util.concurrent.ForkJoinPool#managedBlock},
+     * so that the pool can activate a spare thread in the meantime.</p>
+     *
+     * <p> Note that the waiting worker must not run other sparks, or tasks in general,
+     * while it waits. Such a task would run on top of the evaluations
+     * the worker has claimed, and if it needed one of them, it would have to 
+     * evaluate it again or, worse, wait for another worker that waits for this one.</p>
+     */
+    private void await(final Object owner) {
+        boolean interrupted = false;
+        WAITERS.incrementAndGet(this);
+        try {
+            if (Thread.currentThread() instanceof java.util.concurrent.ForkJoinWorkerThread) {
+                final Blocker blocker = new Blocker(this, owner);
+                while (!blocker.isReleasable()) {
+                    try { java.util.concurrent.ForkJoinPool.managedBlock(blocker); }
+                    catch (InterruptedException ex) { interrupted = true; }
+                }
+            }
+            else synchronized (this) {
+                while (result == null && ev == owner) {
+                    try { this.wait(); }
+                    catch (InterruptedException ex) { interrupted = true; }
+                }
+            }
+        } finally {
+            WAITERS.decrementAndGet(this);
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * <p> Waiting for a value under evaluation in a {@link java.util.concurrent.ForkJoinPool}. </p>
+     */
+    final static class Blocker implements java.util.concurrent.ForkJoinPool.ManagedBlocker {
+        private final Unknown<?> u;
+        private final Object owner;
+        Blocker(final Unknown<?> u, final Object owner) { this.u = u; this.owner = owner; }
+
+        /** <p> The value is known or its evaluation was aborted. </p> */
+        public boolean isReleasable() { return u.result != null || u.ev != owner; }
+
+        public boolean block() throws InterruptedException {
+            synchronized (u) {
+                while (!isReleasable()) u.wait();
+            }
+            return true;
+        }
     }
 
     /**
@@ -399,6 +626,19 @@ public abstract class Unknown<V> implements Lazy<V>, java.util.concurrent.Callab
      * <p> This is the method subclasses of Unknown must implement. </p>
      */
     public abstract Lazy<V> _v();
+
+    /**
+     * <p> Release anything that was needed to compute the result. </p>
+     *
+     * <p> This is called once the result is known. Subclasses that
+     * hold references to the arguments or other values needed in {@link Unknown#_v}
+     * should set them to <tt>null</tt> here, otherwise an evaluated value
+     * would keep alive everything it was computed from. </p>
+     *
+     * <p> {@link Unknown#_v} will not be called anymore after this. </p>
+     */
+    protected void forget() {}
+
     /**
      * Backwards compatibility
      */
@@ -418,6 +658,13 @@ public abstract class Unknown<V> implements Lazy<V>, java.util.concurrent.Callab
     final public boolean unknown() { return result == null; }
     final public boolean _u() { return result == null; }
 
+    /**
+     * <p> Tell if this value is under evaluation, or is an indirection to one. </p>
+     *
+     * <p> A {@link Spark} for such a value is not worth running. </p>
+     */
+    final boolean evaluating() { return ev != null; }
+
     /**
      * <p> Implemenation of the {@link java.util.concurrent.Callable} interface </p>
      * @return the result of {@link Unknown#_e}
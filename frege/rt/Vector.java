@@ -0,0 +1,393 @@
+/* «•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»
+
+    Copyright © 2011, Ingo Wechsung
+    All rights reserved.
+    
+    Redistribution and use in source and binary forms, with or
+    without modification, are permitted provided that the following
+    conditions are met:
+    
+        Redistributions of source code must retain the above copyright
+        notice, this list of conditions and the following disclaimer.
+    
+        Redistributions in binary form must reproduce the above
+        copyright notice, this list of conditions and the following
+        disclaimer in the documentation and/or other materials provided
+        with the distribution. Neither the name of the copyright holder
+        nor the names of its contributors may be used to endorse or
+        promote products derived from this software without specific
+        prior written permission. 
+        
+    THIS SOFTWARE IS PROVIDED BY THE
+    COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR
+    IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+    WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+    PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER
+    OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+    SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+    LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+    USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+    AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+    LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING
+    IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+    THE POSSIBILITY OF SUCH DAMAGE.
+
+    «•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•» */
+    
+package frege.rt;
+
+
+// $Author$
+// $Date$
+// $Rev$
+// $Id$
+
+/**
+ * <p> Persistent vector of frege values. </p>
+ *
+ * <p> Used to realize type Prelude.Vector elem. </p>
+ *
+ * <p> The elements are stored in a bit-partitioned trie with 32-way
+ * branching and a tail buffer that holds up to 32 elements
+ * at the end of the vector.
+ * Access, update and appending are O(log<sub>32</sub> n), where appending
+ * just copies the tail most of the time. </p>
+ *
+ * <p> Slices share the trie with the vector they are taken from. 
+ * The elements outside of a slice remain reachable, unless the 
+ * slice is small enough to be copied. </p>
+ *
+ * <p> A {@link Vector.Transient} can be used to build or update a vector 
+ * in place, without copying nodes it did create itself. </p>
+ *
+ * <p> This is a pure type. </p>
+ */
+public final class Vector<T extends Lazy<T>> {
+    private final static int BITS  = 5;
+    private final static int WIDTH = 1 << BITS;
+    private final static int MASK  = WIDTH - 1;
+
+    /**
+     * <p> Node of the trie. </p>
+     *
+     * <p> The array holds either sub nodes or, on the lowest level, the elements. 
+     * A node may be changed destructively only by the {@link Vector.Transient}
+     * whose edit token it carries. </p>
+     */
+    private final static class Node {
+        final Object   edit;
+        final Object[] array;
+        Node(final Object edit, final Object[] array) { this.edit = edit; this.array = array; }
+        Node(final Object edit)                       { this(edit, new Object[WIDTH]); }
+    }
+
+    private final static Node     emptyNode = new Node(null);
+    private final static Object[] emptyTail = new Object[0];
+
+    /** index of the first element of this vector in the trie */
+    private final int origin;
+    /** number of elements of this vector */
+    private final int count;
+    /** number of elements stored in trie and tail, at least origin+count */
+    private final int size;
+    /** the number of bits to shift an index right to get the slot in the root node */
+    private final int shift;
+    private final Node     root;
+    /** the elements from index {@link #tailoff(int)} to size, the array has no spare room */
+    private final Object[] tail;
+
+    private Vector(final int origin, final int count, final int size, 
+                    final int shift, final Node root, final Object[] tail) {
+        this.origin = origin;
+        this.count  = count;
+        this.size   = size;
+        this.shift  = shift;
+        this.root   = root;
+        this.tail   = tail;
+    }
+
+    /** the empty vector */
+    public static <T extends Lazy<T>> Vector<T> empty() {
+        return new Vector<T>(0, 0, 0, BITS, emptyNode, emptyTail);
+    }
+
+    /** the index where the tail begins in a vector with the given size */
+    private static int tailoff(final int size) {
+        return size < WIDTH ? 0 : ((size - 1) >>> BITS) << BITS;
+    }
+
+    /** the array that contains the element with index j */
+    private static Object[] arrayFor(final Node root, final int shift, final Object[] tail, 
+                                        final int size, final int j) {
+        if (j >= tailoff(size)) return tail;
+        Node node = root;
+        for (int level = shift; level > 0; level -= BITS)
+            node = (Node) node.array[(j >>> level) & MASK];
+        return node.array;
+    }
+
+    /** the node itself, if it is owned by edit, otherwise a copy that is */
+    private static Node editable(final Object edit, final Node node) {
+        if (edit != null && node.edit == edit) return node;
+        return new Node(edit, node.array.clone());
+    }
+
+    /** set element j in the trie below node, copying nodes not owned by edit */
+    private static Node assoc(final Object edit, final int level, final Node node, final int j, final Object v) {
+        final Node ret = editable(edit, node);
+        if (level == 0) ret.array[j & MASK] = v;
+        else {
+            final int sub = (j >>> level) & MASK;
+            ret.array[sub] = assoc(edit, level - BITS, (Node) node.array[sub], j, v);
+        }
+        return ret;
+    }
+
+    /** make a path of nodes down to the given level, ending in node */
+    private static Node newPath(final Object edit, final int level, final Node node) {
+        if (level == 0) return node;
+        final Node ret = new Node(edit);
+        ret.array[0] = newPath(edit, level - BITS, node);
+        return ret;
+    }
+
+    /** insert a full tail into the trie of a vector with the given size */
+    private static Node pushTail(final Object edit, final int level, final Node parent, 
+                                    final Node tailNode, final int size) {
+        final int  sub = ((size - 1) >>> level) & MASK;
+        final Node ret = editable(edit, parent);
+        final Node insert;
+        if (level == BITS) insert = tailNode;
+        else {
+            final Node child = (Node) parent.array[sub];
+            insert = child != null
+                    ? pushTail(edit, level - BITS, child, tailNode, size)
+                    : newPath(edit, level - BITS, tailNode);
+        }
+        ret.array[sub] = insert;
+        return ret;
+    }
+
+    /** the number of elements */
+    final public int length() { return count; }
+
+    private void check(final int i) {
+        if (i < 0 || i >= count) 
+            throw new IndexOutOfBoundsException("Vector index " + i + ", length " + count);
+    }
+
+    /** get element with index i */
+    @SuppressWarnings("unchecked")
+    final public T getAt(final int i) {
+        check(i);
+        final int j = origin + i;
+        return (T) arrayFor(root, shift, tail, size, j)[j & MASK];
+    }
+
+    /**
+     * <p> Update vector nondestructively. </p>
+     * @param i   index into the vector
+     * @param v   new value to set at index i
+     * @return a new vector that looks like this one except that there is value v at index i
+     */
+    final public Vector<T> updAt(final int i, final T v) {
+        check(i);
+        final int j = origin + i;
+        if (j >= tailoff(size)) {
+            final Object[] t = tail.clone();
+            t[j & MASK] = v;
+            return new Vector<T>(origin, count, size, shift, root, t);
+        }
+        return new Vector<T>(origin, count, size, shift, assoc(null, shift, root, j, v), tail);
+    }
+
+    /**
+     * <p> Append an element. </p>
+     * @return a new vector that looks like this one with v appended
+     */
+    final public Vector<T> push(final T v) {
+        final int j = origin + count;
+        if (j < size) {             // there are elements beyond this slice
+            final Vector<T> upd = new Vector<T>(origin, count+1, size, shift, root, tail);
+            return upd.updAt(count, v);
+        }
+        if (size - tailoff(size) < WIDTH) {
+            final Object[] t = java.util.Arrays.copyOf(tail, tail.length + 1);
+            t[tail.length] = v;
+            return new Vector<T>(origin, count+1, size+1, shift, root, t);
+        }
+        final Node tailNode = new Node(null, tail);
+        if ((size >>> BITS) > (1 << shift)) {       // root overflow
+            final Node r = new Node(null);
+            r.array[0] = root;
+            r.array[1] = newPath(null, shift, tailNode);
+            return new Vector<T>(origin, count+1, size+1, shift + BITS, r, new Object[] { v });
+        }
+        return new Vector<T>(origin, count+1, size+1, shift, 
+                                pushTail(null, shift, root, tailNode, size), new Object[] { v });
+    }
+
+    /**
+     * <p> Remove the last element. </p>
+     * @return a new vector that looks like this one without the last element
+     */
+    final public Vector<T> pop() {
+        if (count == 0) throw new IllegalStateException("Vector.pop on empty vector");
+        return slice(0, count-1);
+    }
+
+    /**
+     * <p> Take a part of this vector. </p>
+     *
+     * <p> Small slices get copied, others share the trie with this vector.</p>
+     *
+     * @param from index of the first element
+     * @param to   index of the element after the last one
+     * @return a vector with the elements from index from to index to-1 of this one
+     */
+    final public Vector<T> slice(final int from, final int to) {
+        if (from < 0 || to > count || from > to)
+            throw new IndexOutOfBoundsException("Vector slice " + from + ".." + to + ", length " + count);
+        final int n = to - from;
+        if (n == 0) return empty();
+        if (n <= WIDTH) {
+            final Object[] t = new Object[n];
+            for (int i = 0; i < n; i++) {
+                final int j = origin + from + i;
+                t[i] = arrayFor(root, shift, tail, size, j)[j & MASK];
+            }
+            return new Vector<T>(0, n, n, BITS, emptyNode, t);
+        }
+        return new Vector<T>(origin + from, n, size, shift, root, tail);
+    }
+
+    /** a {@link Vector.Transient} that starts out with the elements of this vector */
+    final public Transient<T> asTransient() { return new Transient<T>(this); }
+
+    /**
+     * <p> Make a persistent vector from a frozen array. </p>
+     * <p> The array may contain null values. </p>
+     */
+    public static <T extends Lazy<T>> Vector<T> fromArray(final Array<T> arr) {
+        final Transient<T> tv = new Transient<T>(Vector.<T>empty());
+        final int n = arr.length();
+        for (int i = 0; i < n; i++) tv.push(arr.getAt(i));
+        return tv.persistent();
+    }
+
+    /** make an array that holds the elements of this vector */
+    @SuppressWarnings("unchecked")
+    final public Array<T> toArray() {
+        final Array<T> arr = new Array<T>(count);
+        Object[] chunk = null;
+        for (int i = 0; i < count; i++) {
+            final int j = origin + i;
+            if (chunk == null || (j & MASK) == 0) chunk = arrayFor(root, shift, tail, size, j);
+            arr.setAt(i, (T) chunk[j & MASK]);
+        }
+        return arr;
+    }
+
+    /**
+     * <p> Mutable version of a {@link Vector}. </p>
+     *
+     * <p> A transient copies a node of the trie only the first time it is changed 
+     * and updates it in place afterwards. The tail is always updated in place.
+     * Hence, building a vector with a transient costs about the same as filling an array. </p>
+     *
+     * <p> Once {@link #persistent()} has been called, the transient can not be used anymore. </p>
+     *
+     * <p> This is not a pure type. </p>
+     */
+    public final static class Transient<T extends Lazy<T>> {
+        /** token that marks the nodes owned by this transient */
+        private final Object edit = new Object();
+        private boolean  live = true;
+        private int      origin, count, size, shift;
+        private Node     root;
+        /** the elements from index tailoff(size) to size, with room for WIDTH elements */
+        private Object[] tail;
+
+        /** a new, empty transient */
+        public Transient() { this(Vector.<T>empty()); }
+
+        private Transient(final Vector<T> v) {
+            origin = v.origin;
+            count  = v.count;
+            size   = v.size;
+            shift  = v.shift;
+            root   = v.root;
+            tail   = java.util.Arrays.copyOf(v.tail, WIDTH);
+        }
+
+        private void check(final int i) {
+            if (!live)
+                throw new IllegalStateException("Vector.Transient used after persistent()");
+            if (i < 0 || i >= count)
+                throw new IndexOutOfBoundsException("Vector index " + i + ", length " + count);
+        }
+
+        /** the number of elements */
+        final public int length() { return count; }
+
+        /** get element with index i */
+        @SuppressWarnings("unchecked")
+        final public T getAt(final int i) {
+            check(i);
+            final int j = origin + i;
+            return (T) arrayFor(root, shift, tail, size, j)[j & MASK];
+        }
+
+        /** set element with index i destructively */
+        final public void setAt(final int i, final T v) {
+            check(i);
+            final int j = origin + i;
+            if (j >= tailoff(size)) tail[j & MASK] = v;
+            else root = assoc(edit, shift, root, j, v);
+        }
+
+        /** append an element destructively */
+        final public void push(final T v) {
+            if (!live)
+                throw new IllegalStateException("Vector.Transient used after persistent()");
+            final int j = origin + count;
+            if (j < size) { count++; setAt(count-1, v); return; }
+            if (size - tailoff(size) < WIDTH) {
+                tail[size & MASK] = v;
+            }
+            else {
+                final Node tailNode = new Node(edit, tail);
+                tail = new Object[WIDTH];
+                tail[0] = v;
+                if ((size >>> BITS) > (1 << shift)) {
+                    final Node r = new Node(edit);
+                    r.array[0] = root;
+                    r.array[1] = newPath(edit, shift, tailNode);
+                    root   = r;
+                    shift += BITS;
+                }
+                else root = pushTail(edit, shift, root, tailNode, size);
+            }
+            size++;
+            count++;
+        }
+
+        /** remove the last element */
+        final public void pop() {
+            check(count-1);
+            count--;
+        }
+
+        /**
+         * <p> Make a persistent vector with the current elements. </p>
+         * <p> The transient must not be used afterwards. </p>
+         */
+        final public Vector<T> persistent() {
+            if (!live)
+                throw new IllegalStateException("Vector.Transient used after persistent()");
+            live = false;
+            final Object[] t = java.util.Arrays.copyOf(tail, size - tailoff(size));
+            return new Vector<T>(origin, count, size, shift, root, t);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+#!perl -w
+
+use warnings;
+use strict;
+
+# Generates frege/rt/Fun.java, the classes for functions on primitive values
+# with 1 or 2 arguments, see primFunClass in frege/compiler/GenJava7.fr
+
+my %name = (I => "Int", L => "Long", D => "Double", Z => "Bool");   # also the Box classes
+my %java = (I => "int", L => "long", D => "double", Z => "boolean");
+my @args    = qw(I L D);
+my @results = qw(I L D Z);
+
+open J, ">frege/rt/Fun.java" or die "can't open $!";
+binmode J, ":crlf";                 # the same line ends on every system
+print J <<'TEXT';
+/* «•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»
+
+    Copyright © 2011, Ingo Wechsung
+    All rights reserved.
+    
+    Redistribution and use in source and binary forms, with or
+    without modification, are permitted provided that the following
+    conditions are met:
+    
+        Redistributions of source code must retain the above copyright
+        notice, this list of conditions and the following disclaimer.
+    
+        Redistributions in binary form must reproduce the above
+        copyright notice, this list of conditions and the following
+        disclaimer in the documentation and/or other materials provided
+        with the distribution. Neither the name of the copyright holder
+        nor the names of its contributors may be used to endorse or
+        promote products derived from this software without specific
+        prior written permission. 
+        
+    THIS SOFTWARE IS PROVIDED BY THE
+    COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR
+    IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+    WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+    PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER
+    OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+    SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+    LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+    USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+    AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+    LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING
+    IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+    THE POSSIBILITY OF SUCH DAMAGE.
+
+    «•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•» */
+
+package frege.rt;
+
+// $Author$
+// $Date$
+// $Rev$
+// $Id$
+
+/**
+ * <p> Functions on primitive values. </p>
+ *
+ * <p> A function of type <tt>Int -&gt; Int</tt> is a {@link Lambda} like any other,
+ * so arguments and results are passed as {@link Box}es, which often means
+ * an allocation on every call. </p>
+ *
+ * <p> Where the compiler knows that a function of such a type is applied,
+ * it checks whether the function is an instance of one of the classes below
+ * and, if so, calls its <tt>run</tt> method with unboxed arguments: </p>
+ * <pre>
+ * f instanceof Fun.II ? ((Fun.II) f).run(x) : ((Box.Int) f.apply(Box.Int.mk(x))._e()).j
+ * </pre>
+ *
+ * <p> The compiler makes function values with such types, that are strict
+ * in all arguments, an instance of one of the classes below.
+ * Because the function is strict, it makes no difference when the
+ * arguments are evaluated. </p>
+ *
+ * <p> There is a class for every function type with 1 or 2 arguments of type
+ * <tt>Int</tt>, <tt>Long</tt> or <tt>Double</tt>, and a result of one of those
+ * types or <tt>Bool</tt>. The class names spell the argument and return types, with
+ * I for int, L for long, D for double and Z for boolean. </p>
+ */
+public final class Fun {
+    private Fun() {}
+TEXT
+
+sub fun {
+    my @as = @_;
+    my $r  = pop @as;
+    my $n  = scalar @as;
+    my $cname  = join("", @as, $r);                                         # IDD
+    my $type   = join(" -&gt; ", map { $name{$_} } (@as, $r));              # Int -&gt; Double -&gt; Double
+    my $params = join(", ", map { "final $java{$as[$_-1]} arg$_" } (1..$n)); # final int arg1, final double arg2
+    my $eargs  = join(", ", reverse map { "final Lazy<FV> arg$_" } (1..$n)); # final Lazy<FV> arg2, final Lazy<FV> arg1
+    my $unbox  = join(", ", map { "((Box.$name{$as[$_-1]}) arg$_._e()).j" } (1..$n));
+    print J <<"TEXT";
+
+    /** <p> A function of type <tt>$type</tt>. </p> */
+    public static abstract class $cname extends Lam$n {
+        /** <p> Run the function with unboxed arguments. </p> */
+        public abstract $java{$r} run($params);
+        final public Lazy<FV> eval($eargs) {
+            return Box.$name{$r}.mk(run($unbox));
+        }
+    }
+TEXT
+}
+
+for my $a (@args) {
+    for my $r (@results) { fun($a, $r); }
+}
+for my $a (@args) {
+    for my $b (@args) {
+        for my $r (@results) { fun($a, $b, $r); }
+    }
+}
+print J "}\n";
+close J;
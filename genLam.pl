@@ -37,6 +37,28 @@ while ($n < 27) {
     my @pargs = map { "final Lazy<FV> arg$_" } (2..$n);
     my @rpargs = reverse @pargs;
     my $crpargs = join(",", @rpargs);
+    my $assign = join(" ", map { "this.$_ = $_;" } @args);
+    my $nulls  = join(" ", map { "$_ = null;" } @args);
+    my $crcall = join(",", map { "args[$_]" } reverse (0..$n-1));
+    # partial applications to 2, 3 or 4 arguments, see Lambda
+    my $partial = "";
+    for my $k (2..4) {
+        last unless $k < $n;
+        my $r = $n - $k;
+        my $kargs = join(",", map { "final Lazy<FV> arg$_" } (1..$k));
+        my $kall  = join(",", map { "arg$_" } (1..$k));
+        $partial .= <<"PARTIAL";
+
+    /**
+     * <p>Apply this function to $k arguments.</p>
+     *
+     * \@return a {\@link PAP} that waits for the remaining $r arguments.
+     */
+    final public Lambda apply($kargs) {
+        return new PAP(this, $kall);
+    }
+PARTIAL
+    }
     print J <<'LIZENZ';
 /* «•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»«•»
 
@@ -94,19 +116,15 @@ public abstract class Lam$n extends Lambda {
    /**
      * <p>Apply this function to an argument.</p>
      *
-     * <p> This method creates an instance of {\@link Lam$p} that collects the
-     * remaining arguments and, when evaluated, invokes the {\@link Lam$n#eval} method of this
+     * <p> This method creates a {\@link PAP} that collects the
+     * remaining arguments and, when it has all, invokes the {\@link Lam$n#eval} method of this
      * class.</p>
      *
-     * \@return an instance of type <tt>Lam$p</tt> that waits for the
-     * remaining arguments to be supplied and calls back with all arguments.
+     * \@return a function that waits for the
+     * remaining $p arguments to be supplied and calls back with all arguments.
      */
-    final public Lam$p apply(final Lazy<FV> arg1) {
-        return new Lam$p () {
-            final public Lazy<FV> eval($crpargs) {
-                return Lam$n.this.eval($crargs);
-            }
-        };
+    final public Lambda apply(final Lazy<FV> arg1) {
+        return new PAP(this, arg1);
     }
     /**
      * <p>Apply this function to all its arguments at once.</p>
@@ -122,33 +140,55 @@ public abstract class Lam$n extends Lambda {
      * \@return an instance of type <tt>Unknown&lt;FV&gt;</tt>
      */
     final public Unknown<FV> apply($cnargs) {
-        return new Unknown<FV> () {
-            final public Lazy<FV> _v() { return Lam$n.this.eval($crargs); }
-        };
+        return new Apply(this, $cargs);
+    }
+
+    /**
+     * <p> The lazy value that results from applying a {\@link Lam$n}
+     * to all arguments. </p>
+     *
+     * <p> Function and arguments are dropped once the value is evaluated,
+     * see {\@link Lam1} and {\@link Unknown#forget}. </p>
+     */
+    private static final class Apply extends Unknown<FV> {
+        private Lam$n fun;
+        private Lazy<FV> $cargs;
+        Apply(final Lam$n fun, $cnargs) {
+            this.fun = fun;
+            $assign
+        }
+        final public Lazy<FV> _v() { return fun.eval($crargs); }
+        final protected void forget() { fun = null; $nulls }
     }
     
     /**
      * <p> Run the function. </p>
      *
-     * <p> The run method will be called by the {\@link Lam$p#eval} method
-     * of the lambda object resulting from <tt>this.apply(...)</tt>.
+     * <p> The run method will be called by the lazy value resulting
+     * from <tt>this.apply(...)</tt> with all arguments, or by a {\@link PAP}
+     * that has collected all arguments.
      * It actually performs computation and
      * returns a result or another lazy value that will evaluate to the result.<br>
      * This method must be implemented by all subclasses.</p>
      *
      * <p>
-     * Note that the arguments must be passed in reverse order. The reason is that
-     * in this way the byte code for any intermediate closure will only have to
-     * push its argument and invoke the next higher closure's <tt>eval</tt> method.
-     * A reordering of the arguments on the stack will not be needed. This could save
-     * a substantial amounts of memory writes (I hope).
+     * Note that the arguments must be passed in reverse order. This stems from
+     * the time when partial applications were nested closures, each of which
+     * just pushed its argument and invoked the next higher closure's <tt>eval</tt> method.
      * </p>
      *
      *
      * \@return boxed and possibly lazy result
      */
     abstract public Lazy<FV> eval($crpargs, Lazy<FV> arg1);
-}
+
+    /** <p> This function takes $n arguments. </p> */
+    final public int arity() { return $n; }
+
+    final Lazy<FV> call(final Lazy<FV>[] args) {
+        return this.eval($crcall);
+    }
+$partial}
 TEXT
     # print "joined=", (join (",", @targs)), "\n";
     close J;